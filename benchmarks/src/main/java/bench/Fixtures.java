@@ -0,0 +1,29 @@
+package bench;
+
+/**
+ * The class Fixtures holds the initial boards of the solution fixtures in the tests directory.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * board
+     *
+     * @param shape - one of 2x3, 3x4 or 4x4
+     * @return initial board of tests/shape_test
+     */
+    static int[][] board(final String shape) {
+        switch (shape) {
+            case "2x3":
+                return new int[][]{{5, 4}, {3, 2}, {0, 1}};
+            case "3x4":
+                return new int[][]{{1, 2, 3, 4}, {5, 6, 0, 8}, {9, 10, 7, 11}};
+            case "4x4":
+                return new int[][]{{1, 2, 3, 4}, {5, 6, 7, 8}, {9, 10, 0, 12}, {13, 14, 11, 15}};
+            default:
+                throw new IllegalArgumentException("No fixture for shape " + shape);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package bench;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import src.GameState;
+import src.Heuristic;
+import src.LinearConflictHeuristic;
+import src.ManhattanHeuristic;
+import src.WalkingDistanceHeuristic;
+
+/**
+ * The class GameStateBenchmark measures the per-node operations of a search on the fixture boards:
+ * successor generation, heuristics, the goal test and the hashing and equality used by the open and closed sets.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+    @Param({"2x3", "3x4", "4x4"})
+    public String shape;
+
+    private GameState state;
+    private GameState copy;
+    private final GameState[] moveBuffer = new GameState[4];
+    private Heuristic manhattan;
+    private Heuristic linearConflict;
+    private Heuristic walkingDistance;
+
+    @Setup
+    public void setUp() {
+        this.state = new GameState(Fixtures.board(this.shape));
+        this.copy = new GameState(Fixtures.board(this.shape));
+        this.manhattan = new ManhattanHeuristic(this.state.getGoalBoard());
+        this.linearConflict = new LinearConflictHeuristic(this.state.getGoalBoard());
+        this.walkingDistance = new WalkingDistanceHeuristic(this.state.getGoalBoard());
+    }
+
+    @Benchmark
+    public ArrayList<GameState> possibleMoves() {
+        return this.state.possibleMoves();
+    }
+
+    @Benchmark
+    public void successors(final Blackhole blackhole) {
+        final int moveCount = this.state.successors(this.moveBuffer);
+        for (int m = 0; m < moveCount; m++) {
+            blackhole.consume(this.moveBuffer[m]);
+        }
+    }
+
+    @Benchmark
+    public int calculateHeuristic() {
+        return this.state.calculateHeuristic();
+    }
+
+    @Benchmark
+    public int manhattan() {
+        return this.manhattan.estimate(this.state);
+    }
+
+    @Benchmark
+    public int linearConflict() {
+        return this.linearConflict.estimate(this.state);
+    }
+
+    @Benchmark
+    public int walkingDistance() {
+        return this.walkingDistance.estimate(this.state);
+    }
+
+    @Benchmark
+    public boolean isGoal() {
+        return this.state.isGoal();
+    }
+
+    @Benchmark
+    public int hashCodeOfNewState() {
+        return new GameState(Fixtures.board(this.shape)).hashCode();
+    }
+
+    @Benchmark
+    public boolean equalState() {
+        return this.state.equals(this.copy);
+    }
+}
@@ -0,0 +1,66 @@
+package bench;
+
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import src.Algorithm;
+import src.Solver;
+
+/**
+ * The class SolverBenchmark runs every algorithm end to end on the fixture boards, from building the Solver
+ * to writing the report. Reports go to a discarded writer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"2x3", "3x4", "4x4"})
+    public String shape;
+
+    @Param
+    public Algorithm algorithm;
+
+    private int[][] board;
+    private PrintWriter output;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.board = Fixtures.board(this.shape);
+        final OutputStream discard = new OutputStream() {
+            @Override
+            public void write(final int b) {
+            }
+
+            @Override
+            public void write(final byte[] b, final int off, final int len) {
+            }
+        };
+        this.output = new PrintWriter(discard);
+    }
+
+    @Benchmark
+    public Solver solve() {
+        final Solver solver = new Solver(this.board);
+        solver.solve(this.algorithm, this.output);
+        this.output.flush();
+        return solver;
+    }
+}
@@ -0,0 +1,54 @@
+package src;
+
+/**
+ * The enum Algorithm names the searches a Solver can be asked to run by key, as used on the command line.
+ */
+public enum Algorithm {
+    UNIFORM_COST("ucs"),
+    A_STAR("astar"),
+    BREADTH_FIRST("bfs"),
+    DEPTH_FIRST("dfs"),
+    GREEDY("greedy"),
+    DEPTH_LIMITED("dls"),
+    ITERATIVE_DEEPENING("ids"),
+    IDA_STAR("idastar"),
+    BIDIRECTIONAL_BREADTH_FIRST("bibfs"),
+    BIDIRECTIONAL_A_STAR("biastar"),
+    MEMORY_BOUNDED_A_STAR("smastar"),
+    WEIGHTED_A_STAR("wastar"),
+    ANYTIME_A_STAR("arastar"),
+    MACRO_OPERATOR("macro"),
+    PARALLEL_A_STAR("hda"),
+    PATTERN_DATABASE_A_STAR("pdb");
+
+    private final String key;
+
+    Algorithm(final String key) {
+        this.key = key;
+    }
+
+    /**
+     * getKey
+     *
+     * @return short name of the algorithm
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * fromKey
+     *
+     * @param key - short name of an algorithm
+     * @return the algorithm with that name
+     * @throws IllegalArgumentException if no algorithm has that name
+     */
+    public static Algorithm fromKey(final String key) {
+        for (final Algorithm algorithm : Algorithm.values()) {
+            if (algorithm.key.equalsIgnoreCase(key)) {
+                return algorithm;
+            }
+        }
+        throw new IllegalArgumentException("Unknown algorithm " + key);
+    }
+}
@@ -0,0 +1,155 @@
+package src;
+
+import java.util.Arrays;
+
+/**
+ * The class ArenaQueue is the frontier of the best-first searches that keep their nodes in a NodeArena.
+ * It is a binary min-heap of node indexes in the order of NodeQueue: on f = cost + heuristic, ties going to the
+ * higher cost. The heap holds the key of each node next to its index, so restoring the order compares entries
+ * of the heap only instead of reading the arena at random. The position of each node in the heap is kept in the
+ * arena's queue index column, which lets decreaseKey restore the order in O(log n) when a cheaper path to a
+ * queued node is found.
+ */
+public class ArenaQueue {
+    private final NodeArena arena;
+    private int[] heap = new int[64];
+    private long[] keys = new long[64];
+    private int size;
+
+    /**
+     * ArenaQueue
+     *
+     * @param arena - arena holding the nodes queued
+     */
+    public ArenaQueue(final NodeArena arena) {
+        this.arena = arena;
+    }
+
+    /**
+     * add
+     *
+     * @param node - index of the node to queue
+     */
+    public void add(final int node) {
+        if (this.size == this.heap.length) {
+            this.heap = Arrays.copyOf(this.heap, this.size << 1);
+            this.keys = Arrays.copyOf(this.keys, this.size << 1);
+        }
+        this.heap[this.size] = node;
+        this.keys[this.size] = this.key(node);
+        this.siftUp(this.size++);
+    }
+
+    /**
+     * poll
+     *
+     * @return removes and returns the node with the lowest f value, -1 if the queue is empty
+     */
+    public int poll() {
+        if (this.size == 0) {
+            return -1;
+        }
+        final int top = this.heap[0];
+        --this.size;
+        if (this.size > 0) {
+            this.heap[0] = this.heap[this.size];
+            this.keys[0] = this.keys[this.size];
+            this.siftDown(0);
+        }
+        this.arena.setQueueIndex(top, -1);
+        return top;
+    }
+
+    /**
+     * decreaseKey
+     * Restores the heap order after the cost of a queued node has been lowered.
+     *
+     * @param node - index of a queued node whose key decreased
+     */
+    public void decreaseKey(final int node) {
+        final int index = this.arena.getQueueIndex(node);
+        this.keys[index] = this.key(node);
+        this.siftUp(index);
+    }
+
+    /**
+     * contains
+     *
+     * @param node - index of a node
+     * @return true if the node is queued
+     */
+    public boolean contains(final int node) {
+        return this.arena.getQueueIndex(node) >= 0;
+    }
+
+    /**
+     * size
+     *
+     * @return number of queued nodes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * isEmpty
+     *
+     * @return true if and only if no node is queued
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * key
+     *
+     * @param node - index of a node
+     * @return key of the node, lower keys being expanded first: f in the high half, the complement of the cost in
+     * the low half so that the higher cost comes first among equal f values
+     */
+    private long key(final int node) {
+        final int cost = this.arena.getCost(node);
+        return ((long) (cost + this.arena.getHeuristic(node)) << 32) | (Integer.MAX_VALUE - cost);
+    }
+
+    private void siftUp(int index) {
+        final int node = this.heap[index];
+        final long key = this.keys[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (key >= this.keys[parent]) {
+                break;
+            }
+            this.heap[index] = this.heap[parent];
+            this.keys[index] = this.keys[parent];
+            this.arena.setQueueIndex(this.heap[index], index);
+            index = parent;
+        }
+        this.heap[index] = node;
+        this.keys[index] = key;
+        this.arena.setQueueIndex(node, index);
+    }
+
+    private void siftDown(int index) {
+        final int node = this.heap[index];
+        final long key = this.keys[index];
+        final int half = this.size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            final int right = child + 1;
+            if (right < this.size && this.keys[right] < this.keys[child]) {
+                child = right;
+            }
+            if (this.keys[child] >= key) {
+                break;
+            }
+            this.heap[index] = this.heap[child];
+            this.keys[index] = this.keys[child];
+            this.arena.setQueueIndex(this.heap[index], index);
+            index = child;
+        }
+        this.heap[index] = node;
+        this.keys[index] = key;
+        this.arena.setQueueIndex(node, index);
+    }
+}
@@ -0,0 +1,232 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchSolver solves a file of puzzles, one per line in the format read by InputFormatter, on a fixed pool of threads.
+ * Instances are numbered from 1 in input order and their reports are written in that order as soon as every earlier
+ * instance is done. At most a few instances per thread are read ahead, so memory use does not grow with the input.
+ * Instances may have different board shapes.
+ * Optionally, a RunRecord per solved or unsolved instance is written as a JSON line, in the same order, for Statistics.
+ */
+public class BatchSolver {
+    private final Algorithm algorithm;
+    private final int threads;
+    private final long nodeLimit;
+    private final long timeoutMillis;
+    private final CancellationToken token = new CancellationToken();
+    private SolutionCache cache;
+    private SolutionFormat solutionFormat = SolutionFormat.BOARDS;
+
+    /**
+     * BatchSolver
+     *
+     * @param algorithm     - search run on every instance
+     * @param threads       - number of instances solved at the same time
+     * @param nodeLimit     - maximum number of nodes visited per instance, Long.MAX_VALUE for no limit
+     * @param timeoutMillis - maximum search time per instance in milliseconds, 0 for no limit
+     */
+    public BatchSolver(final Algorithm algorithm, final int threads, final long nodeLimit, final long timeoutMillis) {
+        this.algorithm = algorithm;
+        this.threads = threads;
+        this.nodeLimit = nodeLimit;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * setCache
+     *
+     * @param cache - solution cache shared by every instance of its board shape, null for none
+     */
+    public void setCache(final SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * setSolutionFormat
+     *
+     * @param solutionFormat - how solutions are written, every board by default
+     */
+    public void setSolutionFormat(final SolutionFormat solutionFormat) {
+        this.solutionFormat = solutionFormat;
+    }
+
+    /**
+     * cancel
+     * Stops the batch from another thread. Running and waiting instances stop within SearchLimits.CHECK_INTERVAL
+     * nodes and report that they were cancelled.
+     */
+    public void cancel() {
+        this.token.cancel();
+    }
+
+    /**
+     * run
+     * Reads every puzzle from input and writes the report of each to output, in input order.
+     *
+     * @param input  - one puzzle per line, blank lines are skipped
+     * @param output - where the reports are written
+     * @throws IOException          if input cannot be read
+     * @throws InterruptedException if interrupted while waiting for an instance
+     */
+    public void run(final BufferedReader input, final PrintWriter output) throws IOException, InterruptedException {
+        this.run(input, output, null);
+    }
+
+    /**
+     * run
+     * Reads every puzzle from input and writes the report of each to output and its run record to records, in input order.
+     *
+     * @param input   - one puzzle per line, blank lines are skipped
+     * @param output  - where the reports are written
+     * @param records - where the run records are written, null for none
+     * @throws IOException          if input cannot be read
+     * @throws InterruptedException if interrupted while waiting for an instance
+     */
+    public void run(final BufferedReader input, final PrintWriter output, final PrintWriter records)
+            throws IOException, InterruptedException {
+        final ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        final ArrayDeque<Future<Result>> window = new ArrayDeque<>();
+        final int windowSize = this.threads * 4;
+        int id = 0;
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                final int instance = ++id;
+                final String puzzle = line;
+                window.add(pool.submit(() -> this.solveInstance(instance, puzzle, records != null)));
+                while (window.size() >= windowSize || (!window.isEmpty() && window.peek().isDone())) {
+                    BatchSolver.await(window.poll()).write(output, records);
+                }
+            }
+            while (!window.isEmpty()) {
+                BatchSolver.await(window.poll()).write(output, records);
+            }
+            output.flush();
+            if (records != null) {
+                records.flush();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * solveInstance
+     *
+     * @param id     - number of the instance in the input
+     * @param puzzle - puzzle text
+     * @param record - true to measure the run for a run record
+     * @return report of the instance, headed by its number, and its run record if one was asked for and the instance was run
+     */
+    Result solveInstance(final int id, final String puzzle, final boolean record) {
+        final StringWriter text = new StringWriter();
+        final PrintWriter output = new PrintWriter(text);
+        RunRecord run = null;
+        output.println("Instance " + id);
+        try {
+            final int[][] board = InputFormatter.takeInput(puzzle);
+            final Solver solver = new Solver(board);
+            solver.setLimits(SearchLimits.NONE.withNodeBudget(this.nodeLimit).withTimeout(this.timeoutMillis)
+                    .withToken(this.token));
+            solver.setMetricsEnabled(record);
+            solver.setThreads(this.threads);
+            solver.setSolutionFormat(this.solutionFormat);
+            if (this.cache != null && this.cache.fits(solver.rootNode.state)) {
+                solver.setCache(this.cache);
+            }
+            final long startTime = System.nanoTime();
+            solver.solve(this.algorithm, output);
+            final long time = System.nanoTime() - startTime;
+            output.println("Time: " + time / 1000000 + " ms");
+            if (record) {
+                run = RunRecord.of(this.algorithm, id, board, solver, time);
+            }
+            output.println();
+        } catch (final IllegalArgumentException e) {
+            output.println("Invalid input: " + e.getMessage());
+            output.println();
+        }
+        output.flush();
+        return new Result(text.toString(), run);
+    }
+
+    private static Result await(final Future<Result> result) throws InterruptedException {
+        try {
+            return result.get();
+        } catch (final ExecutionException e) {
+            return new Result("Instance failed: " + e.getCause() + System.lineSeparator() + System.lineSeparator(), null);
+        }
+    }
+
+    /**
+     * The class Result is the outcome of one instance, waiting for its turn to be written.
+     */
+    static final class Result {
+        private final String report;
+        private final RunRecord record;
+
+        Result(final String report, final RunRecord record) {
+            this.report = report;
+            this.record = record;
+        }
+
+        String getReport() {
+            return this.report;
+        }
+
+        void write(final PrintWriter output, final PrintWriter records) {
+            output.print(this.report);
+            if (records != null && this.record != null) {
+                records.println(this.record.toJson());
+            }
+        }
+    }
+
+    /**
+     * main
+     * Usage: BatchSolver input algorithm [threads] [nodeLimit] [timeoutMillis] [output] [records] [format]
+     * input and output may be "-" for the standard streams, algorithm is one of the Algorithm keys,
+     * a node limit or timeout of 0 means no limit. records names a file the run records are written to as JSON lines,
+     * or "-" for none. format is "boards" to write every state of a solution, the default, or "moves" for a move string.
+     *
+     * @param args - command line arguments
+     * @throws Exception if the input cannot be read or the output cannot be written
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: BatchSolver input algorithm [threads] [nodeLimit] [timeoutMillis] [output] [records] [format]");
+            System.exit(-1);
+        }
+        final Algorithm algorithm = Algorithm.fromKey(args[1]);
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final long nodeLimit = args.length > 3 && Long.parseLong(args[3]) > 0 ? Long.parseLong(args[3]) : Long.MAX_VALUE;
+        final long timeoutMillis = args.length > 4 ? Long.parseLong(args[4]) : 0;
+        final BatchSolver batch = new BatchSolver(algorithm, threads, nodeLimit, timeoutMillis);
+        if (args.length > 7) {
+            batch.setSolutionFormat(SolutionFormat.fromKey(args[7]));
+        }
+        try (BufferedReader input = new BufferedReader(args[0].equals("-") ? new InputStreamReader(System.in) : new FileReader(args[0]));
+             PrintWriter output = new PrintWriter(new BufferedWriter(args.length > 5 && !args[5].equals("-")
+                     ? new FileWriter(args[5]) : new OutputStreamWriter(System.out)));
+             PrintWriter records = args.length > 6 && !args[6].equals("-") ? new PrintWriter(new BufferedWriter(new FileWriter(args[6]))) : null) {
+            batch.run(input, output, records);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package src;
+
+/**
+ * The class CancellationToken lets one thread ask searches running on other threads to stop.
+ * Searches poll it along with their other limits, so a cancelled search stops within about a thousand nodes
+ * and reports the cancellation instead of a solution. A token cannot be reset; a new search needs a new token.
+ */
+public class CancellationToken {
+    private volatile boolean cancelled;
+
+    /**
+     * cancel
+     * Asks every search holding this token to stop.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * isCancelled
+     *
+     * @return true once cancel has been called
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+}
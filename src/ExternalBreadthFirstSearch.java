@@ -0,0 +1,469 @@
+package src;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * The class ExternalBreadthFirstSearch enumerates the whole state space of a board shape breadth-first from the goal,
+ * keeping the layers on disk instead of in memory (Korf's delayed duplicate detection).
+ * Every layer is a file of packed states, sorted and without duplicates. The successors of a layer are collected in a
+ * buffer of fixed size; each time it fills up it is sorted and written out as a run. The runs are then merged, and
+ * states also found in the current or the previous layer are dropped on the way, which leaves exactly the next layer:
+ * a move can only lead one layer up, down, or stay in the same layer.
+ * Memory use is the run buffer plus one read buffer per run, whatever the size of the state space.
+ * A checkpoint listing the completed layers is written after each layer, so an interrupted run resumes from there.
+ * States are packed at 4 bits per tile into a long, which limits the search to boards of at most 16 cells.
+ */
+public class ExternalBreadthFirstSearch {
+
+    private static final int READ_BUFFER_BYTES = 1 << 16;
+    private static final String CHECKPOINT = "progress.txt";
+
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int[][] neighbours;
+    private final File directory;
+    private final long[] buffer;
+    private final ArrayList<Long> layerSizes = new ArrayList<>();
+    private final PrintWriter progress;
+
+    /**
+     * ExternalBreadthFirstSearch
+     *
+     * @param rows          - number of rows on the board
+     * @param cols          - number of columns on the board
+     * @param directory     - where layers, runs and the checkpoint are kept
+     * @param bufferStates  - number of states collected in memory before a run is written
+     * @param progress      - where progress is reported
+     * @throws IllegalArgumentException if the board has more than 16 cells
+     */
+    public ExternalBreadthFirstSearch(final int rows, final int cols, final File directory, final int bufferStates,
+                                      final PrintWriter progress) {
+        if (rows * cols > 16) {
+            throw new IllegalArgumentException("External breadth-first search packs states in a long, at most 16 cells");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.neighbours = GameState.neighbourTable(rows, cols);
+        this.directory = directory;
+        this.buffer = new long[Math.max(1024, bufferStates)];
+        this.progress = progress;
+    }
+
+    /**
+     * run
+     * Enumerates every layer, starting after the last completed one if a checkpoint for this board shape exists.
+     *
+     * @return number of states at each distance from the goal
+     * @throws IOException if a layer, run or checkpoint cannot be read or written
+     */
+    public long[] run() throws IOException {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            throw new IOException("Could not create " + this.directory);
+        }
+        if (this.readCheckpoint()) {
+            this.progress.println("Resuming after depth " + (this.layerSizes.size() - 1));
+        } else {
+            this.writeLayer(0, new long[]{ExternalBreadthFirstSearch.goal(this.rows, this.cols)}, 1);
+            this.layerSizes.add(1L);
+            this.writeCheckpoint();
+            this.report(0, 0, 0);
+        }
+        long total = 0;
+        for (final long size : this.layerSizes) {
+            total += size;
+        }
+        while (this.layerSizes.get(this.layerSizes.size() - 1) > 0) {
+            final int depth = this.layerSizes.size();
+            final long startTime = System.nanoTime();
+            final int runs = this.expandLayer(depth - 1);
+            final long size = this.mergeRuns(depth, runs);
+            this.layerSizes.add(size);
+            this.writeCheckpoint();
+            if (depth >= 2) {
+                this.layerFile(depth - 2).delete();
+            }
+            total += size;
+            this.report(depth, runs, (System.nanoTime() - startTime) / 1000000);
+        }
+        this.progress.println("States: " + total);
+        this.progress.flush();
+        this.layerSizes.remove(this.layerSizes.size() - 1);
+        final long[] histogram = new long[this.layerSizes.size()];
+        for (int d = 0; d < histogram.length; d++) {
+            histogram[d] = this.layerSizes.get(d);
+        }
+        return histogram;
+    }
+
+    /**
+     * deepest
+     * Reads back states of the last non-empty layer, the instances furthest from the goal, once run has completed.
+     *
+     * @param limit - largest number of boards returned
+     * @return boards of the deepest layer
+     * @throws IOException if the layer cannot be read
+     */
+    public ArrayList<int[][]> deepest(final int limit) throws IOException {
+        final ArrayList<int[][]> boards = new ArrayList<>();
+        try (LayerReader reader = new LayerReader(this.layerFile(this.layerSizes.size() - 1))) {
+            while (boards.size() < limit && reader.hasNext()) {
+                boards.add(this.unpack(reader.next()));
+            }
+        }
+        return boards;
+    }
+
+    /**
+     * expandLayer
+     * Writes the successors of every state of a layer as sorted runs of distinct states.
+     *
+     * @param depth - layer being expanded
+     * @return number of runs written
+     * @throws IOException if the layer cannot be read or a run cannot be written
+     */
+    private int expandLayer(final int depth) throws IOException {
+        int runs = 0;
+        int count = 0;
+        try (LayerReader reader = new LayerReader(this.layerFile(depth))) {
+            while (reader.hasNext()) {
+                final long state = reader.next();
+                final int blank = this.blankOf(state);
+                for (final int to : this.neighbours[blank]) {
+                    final long tile = (state >>> (to * 4)) & 0xF;
+                    this.buffer[count++] = state & ~(0xFL << (to * 4)) | tile << (blank * 4);
+                }
+                if (count > this.buffer.length - 4) {
+                    this.writeRun(runs++, count);
+                    count = 0;
+                }
+            }
+        }
+        if (count > 0) {
+            this.writeRun(runs++, count);
+        }
+        return runs;
+    }
+
+    /**
+     * writeRun
+     *
+     * @param run   - number of the run
+     * @param count - number of states in the buffer
+     * @throws IOException if the run cannot be written
+     */
+    private void writeRun(final int run, final int count) throws IOException {
+        Arrays.sort(this.buffer, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || this.buffer[distinct - 1] != this.buffer[i]) {
+                this.buffer[distinct++] = this.buffer[i];
+            }
+        }
+        this.writeLayer(this.runFile(run), this.buffer, distinct);
+    }
+
+    /**
+     * mergeRuns
+     * Merges the runs into the next layer, dropping duplicates and states of the two layers before it.
+     *
+     * @param depth - layer being written
+     * @param runs  - number of runs holding its candidates
+     * @return number of states in the layer
+     * @throws IOException if a file cannot be read or written
+     */
+    private long mergeRuns(final int depth, final int runs) throws IOException {
+        final LayerReader[] readers = new LayerReader[runs];
+        final File temp = new File(this.layerFile(depth).getPath() + ".tmp");
+        long size = 0;
+        try (LayerReader current = new LayerReader(this.layerFile(depth - 1));
+             LayerReader previous = depth >= 2 ? new LayerReader(this.layerFile(depth - 2)) : null;
+             LayerWriter writer = new LayerWriter(temp)) {
+            final PriorityQueue<LayerReader> heads = new PriorityQueue<>(Math.max(1, runs),
+                    (a, b) -> Long.compare(a.peek(), b.peek()));
+            for (int r = 0; r < runs; r++) {
+                readers[r] = new LayerReader(this.runFile(r));
+                if (readers[r].hasNext()) {
+                    heads.add(readers[r]);
+                }
+            }
+            boolean first = true;
+            long last = 0;
+            while (!heads.isEmpty()) {
+                final LayerReader head = heads.poll();
+                final long state = head.next();
+                if (head.hasNext()) {
+                    heads.add(head);
+                }
+                if (!first && state == last) {
+                    continue;
+                }
+                first = false;
+                last = state;
+                if (!current.skipTo(state) && (previous == null || !previous.skipTo(state))) {
+                    writer.write(state);
+                    size++;
+                }
+            }
+        } finally {
+            for (int r = 0; r < runs; r++) {
+                if (readers[r] != null) {
+                    readers[r].close();
+                }
+                this.runFile(r).delete();
+            }
+        }
+        if (!temp.renameTo(this.layerFile(depth))) {
+            throw new IOException("Could not move " + temp + " to " + this.layerFile(depth));
+        }
+        return size;
+    }
+
+    private void writeLayer(final int depth, final long[] states, final int count) throws IOException {
+        final File temp = new File(this.layerFile(depth).getPath() + ".tmp");
+        this.writeLayer(temp, states, count);
+        if (!temp.renameTo(this.layerFile(depth))) {
+            throw new IOException("Could not move " + temp + " to " + this.layerFile(depth));
+        }
+    }
+
+    private void writeLayer(final File file, final long[] states, final int count) throws IOException {
+        try (LayerWriter writer = new LayerWriter(file)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(states[i]);
+            }
+        }
+    }
+
+    /**
+     * readCheckpoint
+     *
+     * @return true if a checkpoint for this board shape was found and its layers are on disk
+     * @throws IOException if the checkpoint cannot be read
+     */
+    private boolean readCheckpoint() throws IOException {
+        final File file = new File(this.directory, ExternalBreadthFirstSearch.CHECKPOINT);
+        if (!file.isFile()) {
+            return false;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            if (!(this.rows + "x" + this.cols).equals(reader.readLine())) {
+                throw new IOException(file + " belongs to another board shape");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                this.layerSizes.add(Long.parseLong(line.trim()));
+            }
+        }
+        final int depth = this.layerSizes.size() - 1;
+        if (depth < 0 || !this.layerFile(depth).isFile() || (depth >= 1 && !this.layerFile(depth - 1).isFile())) {
+            throw new IOException(file + " does not match the layers in " + this.directory);
+        }
+        return true;
+    }
+
+    private void writeCheckpoint() throws IOException {
+        final File file = new File(this.directory, ExternalBreadthFirstSearch.CHECKPOINT);
+        final File temp = new File(file.getPath() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(new FileWriter(temp))) {
+            writer.println(this.rows + "x" + this.cols);
+            for (final long size : this.layerSizes) {
+                writer.println(size);
+            }
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not move " + temp + " to " + file);
+        }
+    }
+
+    private void report(final int depth, final int runs, final long millis) {
+        this.progress.println("Depth " + depth + ": " + this.layerSizes.get(depth) + " states, " + runs + " runs, " + millis + " ms");
+        this.progress.flush();
+    }
+
+    private File layerFile(final int depth) {
+        return new File(this.directory, "layer-" + depth + ".bin");
+    }
+
+    private File runFile(final int run) {
+        return new File(this.directory, "run-" + run + ".bin");
+    }
+
+    private int blankOf(final long state) {
+        for (int cell = 0; cell < this.cells; cell++) {
+            if (((state >>> (cell * 4)) & 0xF) == 0) {
+                return cell;
+            }
+        }
+        throw new IllegalStateException("State without a blank");
+    }
+
+    private int[][] unpack(final long state) {
+        final int[][] board = new int[this.rows][this.cols];
+        for (int cell = 0; cell < this.cells; cell++) {
+            board[cell / this.cols][cell % this.cols] = (int) ((state >>> (cell * 4)) & 0xF);
+        }
+        return board;
+    }
+
+    /**
+     * goal
+     *
+     * @param rows - number of rows on the board
+     * @param cols - number of columns on the board
+     * @return packed goal board, tiles in order and the blank in the last cell
+     */
+    private static long goal(final int rows, final int cols) {
+        final int cells = rows * cols;
+        long state = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            state |= (long) ((cell + 1) % cells) << (cell * 4);
+        }
+        return state;
+    }
+
+    /**
+     * The class LayerReader streams the states of a sorted layer or run file through a fixed buffer.
+     */
+    private static final class LayerReader implements Closeable {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(ExternalBreadthFirstSearch.READ_BUFFER_BYTES);
+        private boolean loaded;
+        private long head;
+
+        LayerReader(final File file) throws IOException {
+            this.file = new RandomAccessFile(file, "r");
+            this.channel = this.file.getChannel();
+            this.bytes.limit(0);
+        }
+
+        boolean hasNext() throws IOException {
+            if (this.loaded) {
+                return true;
+            }
+            if (this.bytes.remaining() < 8) {
+                this.bytes.compact();
+                while (this.bytes.position() < 8 && this.channel.read(this.bytes) > 0) {
+                    continue;
+                }
+                this.bytes.flip();
+                if (this.bytes.remaining() < 8) {
+                    return false;
+                }
+            }
+            this.head = this.bytes.getLong();
+            this.loaded = true;
+            return true;
+        }
+
+        long peek() {
+            return this.head;
+        }
+
+        long next() throws IOException {
+            if (!this.hasNext()) {
+                throw new IOException("Read past the end of a layer");
+            }
+            this.loaded = false;
+            return this.head;
+        }
+
+        /**
+         * skipTo
+         * Advances past every state below the given one. Calls must come in increasing order of state.
+         *
+         * @param state - state looked for
+         * @return true if the file holds the state
+         * @throws IOException if the file cannot be read
+         */
+        boolean skipTo(final long state) throws IOException {
+            while (this.hasNext() && this.head < state) {
+                this.loaded = false;
+            }
+            return this.hasNext() && this.head == state;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.file.close();
+        }
+    }
+
+    /**
+     * The class LayerWriter appends states to a file through a fixed buffer.
+     */
+    private static final class LayerWriter implements Closeable {
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocateDirect(ExternalBreadthFirstSearch.READ_BUFFER_BYTES);
+
+        LayerWriter(final File file) throws IOException {
+            this.file = new RandomAccessFile(file, "rw");
+            this.channel = this.file.getChannel();
+            this.channel.truncate(0);
+        }
+
+        void write(final long state) throws IOException {
+            if (!this.bytes.hasRemaining()) {
+                this.flush();
+            }
+            this.bytes.putLong(state);
+        }
+
+        private void flush() throws IOException {
+            this.bytes.flip();
+            while (this.bytes.hasRemaining()) {
+                this.channel.write(this.bytes);
+            }
+            this.bytes.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.flush();
+                this.channel.force(true);
+            } finally {
+                this.file.close();
+            }
+        }
+    }
+
+    /**
+     * main
+     * Usage: ExternalBreadthFirstSearch rows cols directory [bufferStates]
+     * Running it again on the same directory resumes after the last completed layer.
+     *
+     * @param args - command line arguments
+     * @throws IOException if a file in the directory cannot be read or written
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: ExternalBreadthFirstSearch rows cols directory [bufferStates]");
+            System.exit(-1);
+        }
+        final PrintWriter output = new PrintWriter(System.out);
+        final ExternalBreadthFirstSearch search = new ExternalBreadthFirstSearch(Integer.parseInt(args[0]),
+                Integer.parseInt(args[1]), new File(args[2]), args.length > 3 ? Integer.parseInt(args[3]) : 1 << 24, output);
+        final long[] histogram = search.run();
+        output.println("Largest distance: " + (histogram.length - 1));
+        for (final int[][] board : search.deepest(4)) {
+            output.println(Arrays.deepToString(board));
+        }
+        output.flush();
+    }
+}
@@ -2,46 +2,155 @@ package src;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-
-class GoalBoardSingleton {
-    static int[][] GOAL_BOARD;
-
-    public static synchronized int[][] getInstance(final int[][] board) {
-        if (GOAL_BOARD != null) {
-            return GOAL_BOARD;
-        }
-        final int n = board.length;
-        final int m = board[0].length;
-        final int k = n * m;
-        int o = 1;
-        GOAL_BOARD = new int[n][m];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < m; j++) {
-                GOAL_BOARD[i][j] = o++ % k;
-            }
-        }
-        System.out.println(Arrays.deepToString(GOAL_BOARD));
-        return GOAL_BOARD;
-    }
-}
 
+/**
+ * The class GameState is one board of a puzzle. The board is packed into longs; everything that is the same
+ * for every board of the puzzle is kept in the PuzzleContext the state shares with all others of its shape.
+ */
 public class GameState {
 
-    private final int[][] board;
-    public static int SIZE;
-    static int[][] INITIAL_BOARD;
-    public int[][] GOAL_BOARD;
+    private final PuzzleContext context;
+    private final int rows;
+    private final int cols;
+    private long packed;
+    private final long[] words;
+    private int hash;
+    private int blank;
 
     /**
      * GameState
-     * Constructor for GameState, sets board to the int[][] passed as argument
+     * Constructor for GameState, packs the int[][] passed as argument into the compact encoding.
+     * Boards of 16 cells or fewer are held in a single long at 4 bits per tile, larger boards
+     * in a long[] with just enough bits per tile to hold the highest tile number.
      *
      * @param board int matrix holding the N puzzle board configuration
      */
     public GameState(final int[][] board) {
-        this.board = board;
-        this.GOAL_BOARD = GoalBoardSingleton.getInstance(board);
+        this(PuzzleContext.of(board.length, board[0].length), board);
+    }
+
+    /**
+     * GameState
+     * Constructor for GameState in a known context, without looking the context up.
+     *
+     * @param context - context of the puzzle
+     * @param board   - int matrix holding the N puzzle board configuration, of the shape of the context
+     * @throws IllegalArgumentException if the board does not have the shape of the context
+     */
+    public GameState(final PuzzleContext context, final int[][] board) {
+        if (board.length != context.rows || board[0].length != context.cols) {
+            throw new IllegalArgumentException("Board is " + board.length + "x" + board[0].length
+                    + " but the puzzle is " + context.rows + "x" + context.cols);
+        }
+        this.context = context;
+        this.rows = context.rows;
+        this.cols = context.cols;
+        if (this.rows * this.cols <= 16) {
+            this.words = null;
+            this.packed = GameState.pack(board)[0];
+        } else {
+            this.words = GameState.pack(board);
+        }
+        for (int index = 0; index < this.rows * this.cols; index++) {
+            if (this.tileAt(index) == 0) {
+                this.blank = index;
+            }
+        }
+        this.rehash();
+    }
+
+    /**
+     * GameState
+     * Copy constructor used by clone, copies the packed words without decoding the board.
+     *
+     * @param other - GameState to copy
+     */
+    private GameState(final GameState other) {
+        this.context = other.context;
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.packed = other.packed;
+        this.words = other.words == null ? null : other.words.clone();
+        this.hash = other.hash;
+        this.blank = other.blank;
+    }
+
+    /**
+     * GameState
+     * Constructor used for successors, copies the parent and slides the tile at the given cell into the blank.
+     *
+     * @param parent - GameState the move is made from
+     * @param to     - row-major index of a cell adjacent to the blank of parent
+     */
+    private GameState(final GameState parent, final int to) {
+        this(parent);
+        this.setTile(this.blank, this.tileAt(to));
+        this.setTile(to, 0);
+        this.blank = to;
+        this.rehash();
+    }
+
+    /**
+     * neighbourTable
+     *
+     * @param rows - number of rows on the board
+     * @param cols - number of columns on the board
+     * @return for every row-major cell index, the indexes of its neighbours ordered north, west, east, south
+     */
+    static int[][] neighbourTable(final int rows, final int cols) {
+        final int[][] table = new int[rows * cols][];
+        final int[] cell = new int[4];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                int count = 0;
+                if (i > 0) {
+                    cell[count++] = (i - 1) * cols + j;
+                }
+                if (j > 0) {
+                    cell[count++] = i * cols + j - 1;
+                }
+                if (j < cols - 1) {
+                    cell[count++] = i * cols + j + 1;
+                }
+                if (i < rows - 1) {
+                    cell[count++] = (i + 1) * cols + j;
+                }
+                table[i * cols + j] = Arrays.copyOf(cell, count);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * bitsPerTile
+     *
+     * @param cells - number of cells on the board
+     * @return number of bits needed to store one tile, at least 4
+     */
+    static int bitsPerTile(final int cells) {
+        return Math.max(4, 32 - Integer.numberOfLeadingZeros(cells - 1));
+    }
+
+    /**
+     * pack
+     * Encodes a board in row-major order, tile i occupying bits [i * bits, (i + 1) * bits) of the packed words.
+     *
+     * @param board - int matrix holding the board configuration
+     * @return packed words, a single word for boards of 16 cells or fewer
+     */
+    static long[] pack(final int[][] board) {
+        final int cells = board.length * board[0].length;
+        final int bits = GameState.bitsPerTile(cells);
+        final int perWord = 64 / bits;
+        final long[] packedWords = new long[(cells + perWord - 1) / perWord];
+        int index = 0;
+        for (final int[] row : board) {
+            for (final int tile : row) {
+                packedWords[index / perWord] |= (long) tile << ((index % perWord) * bits);
+                index++;
+            }
+        }
+        return packedWords;
     }
 
     /**
@@ -52,11 +161,120 @@ public class GameState {
 
     @Override
     public GameState clone() {
-        final int[][] clonedBoard = new int[this.board.length][this.board[0].length];
-        for (int i = 0; i < this.board.length; i++) {
-            System.arraycopy(this.board[i], 0, clonedBoard[i], 0, this.board[0].length);
+        return new GameState(this);
+    }
+
+    /**
+     * getContext
+     *
+     * @return context shared by every state of the puzzle
+     */
+    public PuzzleContext getContext() {
+        return this.context;
+    }
+
+    /**
+     * getGoalBoard
+     *
+     * @return a fresh copy of the goal board of the puzzle
+     */
+    public int[][] getGoalBoard() {
+        return this.context.getGoalBoard();
+    }
+
+    /**
+     * getRows
+     *
+     * @return number of rows on the board
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * getCols
+     *
+     * @return number of columns on the board
+     */
+    public int getCols() {
+        return this.cols;
+    }
+
+    /**
+     * tileAt
+     *
+     * @param index - row-major cell index
+     * @return tile held by the cell
+     */
+    public int tileAt(final int index) {
+        if (this.words == null) {
+            return (int) (this.packed >>> (index << 2)) & 0xF;
         }
-        return new GameState(clonedBoard);
+        final int bits = this.context.bits;
+        final int perWord = this.context.perWord;
+        return (int) (this.words[index / perWord] >>> ((index % perWord) * bits)) & ((1 << bits) - 1);
+    }
+
+    /**
+     * tileAt
+     *
+     * @param i - index corresponding to row
+     * @param j - index corresponding to col
+     * @return tile held by the cell
+     */
+    public int tileAt(final int i, final int j) {
+        return this.tileAt(i * this.cols + j);
+    }
+
+    /**
+     * setTile
+     * Overwrites a single cell. The hash is not updated, callers must rehash once they are done.
+     *
+     * @param index - row-major cell index
+     * @param tile  - tile to store
+     */
+    private void setTile(final int index, final int tile) {
+        if (this.words == null) {
+            final int shift = index << 2;
+            this.packed = (this.packed & ~(0xFL << shift)) | ((long) tile << shift);
+            return;
+        }
+        final int shift = (index % this.context.perWord) * this.context.bits;
+        final long mask = ((1L << this.context.bits) - 1) << shift;
+        final int word = index / this.context.perWord;
+        this.words[word] = (this.words[word] & ~mask) | ((long) tile << shift);
+    }
+
+    /**
+     * rehash
+     * Recomputes the cached hash from the packed words.
+     */
+    private void rehash() {
+        if (this.words == null) {
+            this.hash = GameState.mix(this.packed);
+            return;
+        }
+        int h = 1;
+        for (final long word : this.words) {
+            h = 31 * h + GameState.mix(word);
+        }
+        this.hash = h;
+    }
+
+    /**
+     * mix
+     * Finalisation step of MurmurHash3, spreads the tile bits over the whole hash.
+     *
+     * @param value - packed word
+     * @return mixed hash of the word
+     */
+    private static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return (int) value;
     }
 
     /**
@@ -67,7 +285,22 @@ public class GameState {
 
     @Override
     public String toString() {
-        return Arrays.deepToString(this.board);
+        final StringBuilder sb = new StringBuilder(this.rows * this.cols * 4);
+        sb.append('[');
+        for (int i = 0; i < this.rows; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append('[');
+            for (int j = 0; j < this.cols; j++) {
+                if (j > 0) {
+                    sb.append(", ");
+                }
+                sb.append(this.tileAt(i, j));
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
     }
 
     /**
@@ -77,33 +310,61 @@ public class GameState {
      */
 
     public boolean isGoal() {
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                if (this.board[i][j] != this.GOAL_BOARD[i][j]) {
-                    return false;
-                }
-            }
+        if (this.words == null) {
+            return this.packed == this.context.goalPacked[0];
         }
-        return true;
+        return Arrays.equals(this.words, this.context.goalPacked);
     }
 
     /**
      * isSolvable
-     * reference: https://www.geeksforgeeks.org/check-instance-8-puzzle-solvable/
+     * A move along a row leaves the order of the tiles read row by row unchanged, and a move along a column
+     * jumps one tile over cols - 1 others. On an odd width that keeps the parity of the number of inversions,
+     * which must then be even as in the goal; on an even width every vertical move flips it, so the inversions
+     * plus the number of rows between the blank and the bottom row must be even. The condition is also sufficient
+     * on boards of at least two rows and two columns. On a single row or column tiles cannot pass each other,
+     * so they must already be in order.
+     * Inversions are counted with a Fenwick tree over tile numbers, in O(N log N) for N cells.
      *
-     * @return true if number of inversions is even, false if number of inversions is odd.
+     * @return true if and only if the goal can be reached from this state
      */
     public boolean isSolvable() {
-        int inversions = 0;
-        for (int i = 0; i < this.board.length - 1; i++) {
-            for (int j = i + 1; j < this.board[i].length; j++) {
-                if (this.board[j][i] > 0 &&
-                        this.board[j][i] > this.board[i][j]) {
-                    inversions++;
+        final int cells = this.rows * this.cols;
+        if (this.rows == 1 || this.cols == 1) {
+            int previous = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                final int tile = this.tileAt(cell);
+                if (tile != 0) {
+                    if (tile < previous) {
+                        return false;
+                    }
+                    previous = tile;
                 }
             }
+            return true;
+        }
+        final int[] tree = new int[cells];
+        long inversions = 0;
+        int seen = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            final int tile = this.tileAt(cell);
+            if (tile == 0) {
+                continue;
+            }
+            int notGreater = 0;
+            for (int i = tile; i > 0; i -= i & -i) {
+                notGreater += tree[i];
+            }
+            inversions += seen - notGreater;
+            for (int i = tile; i < cells; i += i & -i) {
+                tree[i]++;
+            }
+            seen++;
+        }
+        if (this.cols % 2 == 1) {
+            return inversions % 2 == 0;
         }
-        return inversions % 2 != 0;
+        return (inversions + this.rows - 1 - this.blank / this.cols) % 2 == 0;
     }
 
     /**
@@ -113,23 +374,33 @@ public class GameState {
      * @return true if and only if the GameState supplied as argument has the same board
      */
     public boolean sameBoard(final GameState gs) {
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                if (this.board[i][j] != gs.board[i][j]) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return this.hash == gs.hash && this.packed == gs.packed
+                && (this.words == null || Arrays.equals(this.words, gs.words));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof GameState && this.sameBoard((GameState) o);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
     }
 
     /**
      * getBoard
      *
-     * @return the board corresponding to the object
+     * @return a freshly decoded copy of the board corresponding to the object
      */
     public int[][] getBoard() {
-        return this.board;
+        final int[][] board = new int[this.rows][this.cols];
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.cols; j++) {
+                board[i][j] = this.tileAt(i, j);
+            }
+        }
+        return board;
     }
 
     /**
@@ -142,9 +413,74 @@ public class GameState {
      */
     // Code from AI ASSIGNMENT
     public void swap(final int i, final int j, final int x, final int y) {
-        final int temp = this.board[i][j];
-        this.board[i][j] = this.board[x][y];
-        this.board[x][y] = temp;
+        final int from = i * this.cols + j;
+        final int to = x * this.cols + y;
+        final int temp = this.tileAt(from);
+        this.setTile(from, this.tileAt(to));
+        this.setTile(to, temp);
+        if (this.blank == from) {
+            this.blank = to;
+        } else if (this.blank == to) {
+            this.blank = from;
+        }
+        this.rehash();
+    }
+
+    /**
+     * getWordCount
+     *
+     * @return number of longs the board is packed into
+     */
+    int getWordCount() {
+        return this.words == null ? 1 : this.words.length;
+    }
+
+    /**
+     * getWord
+     *
+     * @param w - index of a packed word, below getWordCount
+     * @return the packed word
+     */
+    long getWord(final int w) {
+        return this.words == null ? this.packed : this.words[w];
+    }
+
+    /**
+     * setPacked
+     * Overwrites the board in place with packed words, for searches that store boards outside GameState objects
+     * and decode them into one reused state.
+     *
+     * @param source - packed words as given by getWord, getWordCount of them
+     * @param blank  - row-major index of the blank in the packed board
+     */
+    void setPacked(final long[] source, final int blank) {
+        if (this.words == null) {
+            this.packed = source[0];
+        } else {
+            System.arraycopy(source, 0, this.words, 0, this.words.length);
+        }
+        this.blank = blank;
+        this.rehash();
+    }
+
+    /**
+     * getBlank
+     *
+     * @return row-major index of the blank cell
+     */
+    public int getBlank() {
+        return this.blank;
+    }
+
+    /**
+     * moveBlank
+     * Slides the tile at the given cell into the blank, in place. Moving the blank back to
+     * the cell it came from undoes the move.
+     *
+     * @param to - row-major index of a cell adjacent to the blank
+     */
+    public void moveBlank(final int to) {
+        this.swap(this.blank / this.cols, this.blank % this.cols, to / this.cols, to % this.cols);
     }
 
     /**
@@ -154,11 +490,12 @@ public class GameState {
      */
     public int calculateHeuristic() {
         int distance = 0;
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                if (this.board[i][j] != 0 && this.board[i][j] != this.GOAL_BOARD[i][j]) {
-                    final int division = (this.board[i][j] - 1) / this.board.length;
-                    final int modulo = (this.board[i][j] - 1) % this.board.length;
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.cols; j++) {
+                final int tile = this.tileAt(i, j);
+                if (tile != 0 && tile != this.context.goalTile(i * this.cols + j)) {
+                    final int division = (tile - 1) / this.cols;
+                    final int modulo = (tile - 1) % this.cols;
                     distance += Math.abs(division - i) + Math.abs(modulo - j);
                 }
             }
@@ -168,9 +505,9 @@ public class GameState {
 
     public int differentHeuristic() {
         int distance = 0;
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                if (this.board[i][j] != this.GOAL_BOARD[i][j]) {
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.cols; j++) {
+                if (this.tileAt(i, j) != this.context.goalTile(i * this.cols + j)) {
                     distance++;
                 }
             }
@@ -179,31 +516,43 @@ public class GameState {
     }
 
 
+    /**
+     * getNeighbours
+     *
+     * @param index - row-major cell index
+     * @return indexes of the cells adjacent to index, ordered north, west, east, south
+     */
+    public int[] getNeighbours(final int index) {
+        return this.context.neighbours[index];
+    }
+
+    /**
+     * successors
+     * Writes every GameState that can be reached in a single move into buffer, in the same order as possibleMoves.
+     *
+     * @param buffer - receives the successors, at least 4 long
+     * @return number of successors written
+     */
+    public int successors(final GameState[] buffer) {
+        final int[] cells = this.context.neighbours[this.blank];
+        for (int m = 0; m < cells.length; m++) {
+            buffer[m] = new GameState(this, cells[m]);
+        }
+        return cells.length;
+    }
+
     /**
      * possibleMoves
      *
      * @return list of all GameStates that can be reached in a single move from the current GameState.
      */
     public ArrayList<GameState> possibleMoves() {
-        final ArrayList<GameState> moves = new ArrayList<GameState>();
-        final HashMap<String, Integer[]> potentialMoves = new HashMap<>();
-
-        for (int i = 0; i < this.board.length; i++) {
-            for (int j = 0; j < this.board[i].length; j++) {
-                potentialMoves.put("WEST", new Integer[]{i, j - 1});
-                potentialMoves.put("EAST", new Integer[]{i, j + 1});
-                potentialMoves.put("SOUTH", new Integer[]{i + 1, j});
-                potentialMoves.put("NORTH", new Integer[]{i - 1, j});
-                for (final Integer[] dir : potentialMoves.values()) {
-                    if (dir[0] >= 0 && dir[1] >= 0 && dir[0] < this.board.length && dir[1] < this.board[0].length && this.board[dir[0]][dir[1]] == 0) {
-                        GameState newState = this.clone();
-                        newState.swap(i, j, dir[0], dir[1]);
-                        moves.add(newState);
-                    }
-                }
-            }
+        final GameState[] buffer = new GameState[4];
+        final int count = this.successors(buffer);
+        final ArrayList<GameState> moves = new ArrayList<GameState>(count);
+        for (int m = 0; m < count; m++) {
+            moves.add(buffer[m]);
         }
         return moves;
     }
 }
-
@@ -0,0 +1,33 @@
+package src;
+
+/**
+ * The interface Heuristic is implemented by the distance estimates the informed searches can be run with.
+ * Besides evaluating a state from scratch, an implementation can derive the value of a successor from the
+ * value of its parent and the single tile that moved, which is how the searches evaluate every generated state.
+ */
+public interface Heuristic {
+
+    /**
+     * estimate
+     *
+     * @param gs - state to evaluate
+     * @return estimated distance to goal state
+     */
+    int estimate(GameState gs);
+
+    /**
+     * update
+     * Evaluates a successor from its parent's value. Implementations that cannot do better than
+     * evaluating the successor from scratch keep this default.
+     *
+     * @param parentValue - estimate of the parent state
+     * @param child       - successor state, with the tile already moved
+     * @param tile        - tile that moved
+     * @param from        - row-major index of the cell the tile left, the blank of child
+     * @param to          - row-major index of the cell the tile moved into, the blank of the parent
+     * @return estimated distance to goal state from child
+     */
+    default int update(final int parentValue, final GameState child, final int tile, final int from, final int to) {
+        return this.estimate(child);
+    }
+}
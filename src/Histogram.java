@@ -0,0 +1,97 @@
+package src;
+
+/**
+ * The class Histogram counts non-negative long values in log-linear buckets, so that quantiles of any number
+ * of values can be read from a fixed 30 KB of counters.
+ * Values below 128 get a bucket each; above that every power of two is split into 64 buckets, which keeps
+ * the reported quantiles within 1.6% of the true value. The minimum and maximum are kept exactly.
+ */
+public class Histogram {
+    private static final int SUB_BUCKETS = 64;
+    private static final int LINEAR = 2 * Histogram.SUB_BUCKETS;
+
+    private final long[] counts = new long[Histogram.LINEAR + 57 * Histogram.SUB_BUCKETS];
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * add
+     *
+     * @param value - value to count, negative values are counted as 0
+     */
+    public void add(final long value) {
+        final long v = Math.max(0, value);
+        this.counts[Histogram.index(v)]++;
+        this.total++;
+        this.min = Math.min(this.min, v);
+        this.max = Math.max(this.max, v);
+    }
+
+    /**
+     * getCount
+     *
+     * @return number of values added
+     */
+    public long getCount() {
+        return this.total;
+    }
+
+    public long getMin() {
+        return this.total == 0 ? 0 : this.min;
+    }
+
+    public long getMax() {
+        return this.total == 0 ? 0 : this.max;
+    }
+
+    /**
+     * quantile
+     *
+     * @param q - fraction of the values, 0.5 for the median
+     * @return highest value of the bucket holding the value of rank q * count, capped by the maximum
+     */
+    public long quantile(final double q) {
+        if (this.total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(q * this.total));
+        long seen = 0;
+        for (int i = 0; i < this.counts.length; i++) {
+            seen += this.counts[i];
+            if (seen >= rank) {
+                return Math.min(this.max, Math.max(this.min, Histogram.highest(i)));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * index
+     *
+     * @param v - non-negative value
+     * @return bucket of the value
+     */
+    private static int index(final long v) {
+        if (v < Histogram.LINEAR) {
+            return (int) v;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(v) - 6;
+        return Histogram.LINEAR + (shift - 1) * Histogram.SUB_BUCKETS + (int) (v >>> shift) - Histogram.SUB_BUCKETS;
+    }
+
+    /**
+     * highest
+     *
+     * @param index - bucket
+     * @return largest value falling into the bucket
+     */
+    private static long highest(final int index) {
+        if (index < Histogram.LINEAR) {
+            return index;
+        }
+        final int shift = (index - Histogram.LINEAR) / Histogram.SUB_BUCKETS + 1;
+        final long mantissa = (index - Histogram.LINEAR) % Histogram.SUB_BUCKETS + Histogram.SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -4,30 +4,55 @@ import java.util.Arrays;
 
 public class InputFormatter {
 
-    static void takeInput(String rawInput) {
-        char[] splitInput = rawInput.toCharArray();
+    /**
+     * takeInput
+     * Parses a puzzle written as "(rows, cols) [tiles...]", tiles in row-major order separated by spaces.
+     *
+     * @param rawInput - puzzle text
+     * @return board described by the text
+     * @throws IllegalArgumentException if the text is not in that format, or its tiles are not each number from
+     *                                  0 to rows * cols - 1 exactly once
+     */
+    static int[][] takeInput(String rawInput) {
         StringBuilder sb = new StringBuilder(rawInput);
         int i = sb.indexOf("(");
         int j = sb.indexOf(")");
+        int start = sb.indexOf("[");
+        int end = sb.indexOf("]");
+        if (i < 0 || j < i || start < j || end < start) {
+            throw new IllegalArgumentException("Expected (rows, cols) [tiles...] but got " + rawInput);
+        }
         StringBuilder indexes = new StringBuilder(sb.substring(i + 1, j));
         int row = Integer.parseInt(indexes.toString().split(",")[0].trim());
         int column = Integer.parseInt(indexes.toString().split(",")[1].trim());
+        if (row < 1 || column < 1) {
+            throw new IllegalArgumentException("Expected at least one row and one column but got (" + row + ", " + column + ")");
+        }
+        String[] values = sb.substring(start + 1, end).trim().split("\\s+");
+        if (values.length != (long) row * column) {
+            throw new IllegalArgumentException("Expected " + (long) row * column + " tiles but got " + values.length);
+        }
         int[][] matrix;
         matrix = new int[row][column];
-        int start = sb.indexOf("[");
-        int end = sb.indexOf("]");
-        String[] values = sb.substring(start + 1, end).split(" ");
+        final boolean[] seen = new boolean[values.length];
         int valuesIndex = 0;
         for (int curRow = 0; curRow < row; curRow++) {
             for (int curCol = 0; curCol < column; curCol++) {
-                matrix[curRow][curCol] = Integer.parseInt(values[valuesIndex++]);
+                final int tile = Integer.parseInt(values[valuesIndex++]);
+                if (tile < 0 || tile >= seen.length) {
+                    throw new IllegalArgumentException("Tile " + tile + " is outside 0 to " + (seen.length - 1));
+                }
+                if (seen[tile]) {
+                    throw new IllegalArgumentException("Tile " + tile + " appears more than once");
+                }
+                seen[tile] = true;
+                matrix[curRow][curCol] = tile;
             }
         }
-        System.out.println(Arrays.deepToString(matrix));
+        return matrix;
     }
 
     public static void main(String[] args) {
-        InputFormatter inputf = new InputFormatter();
-        takeInput("(3, 3) [3 8 6 5 0 2 7 4 1]");
+        System.out.println(Arrays.deepToString(takeInput("(3, 3) [3 8 6 5 0 2 7 4 1]")));
     }
 }
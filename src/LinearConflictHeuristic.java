@@ -0,0 +1,133 @@
+package src;
+
+/**
+ * The class LinearConflictHeuristic adds to the Manhattan distance two moves for every tile that has to leave
+ * its goal row or goal column to let another tile of the same line past it. The number of such tiles in a line
+ * is the number of tiles already in their goal line minus the longest run of them that is already in goal order.
+ * A move only changes the order of the two lines across which the tile slides, so updates recount just those lines.
+ */
+public class LinearConflictHeuristic implements Heuristic {
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int[] distance;
+    private final int[] goalRow;
+    private final int[] goalCol;
+    private final ThreadLocal<int[]> scratch;
+
+    /**
+     * LinearConflictHeuristic
+     *
+     * @param goal - board whose layout the distances are measured to, any rows x cols
+     */
+    public LinearConflictHeuristic(final int[][] goal) {
+        this.rows = goal.length;
+        this.cols = goal[0].length;
+        this.cells = this.rows * this.cols;
+        this.distance = ManhattanHeuristic.distanceTable(goal);
+        this.goalRow = new int[this.cells];
+        this.goalCol = new int[this.cells];
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.cols; j++) {
+                this.goalRow[goal[i][j]] = i;
+                this.goalCol[goal[i][j]] = j;
+            }
+        }
+        this.scratch = ThreadLocal.withInitial(() -> new int[2 * Math.max(this.rows, this.cols)]);
+    }
+
+    @Override
+    public int estimate(final GameState gs) {
+        int sum = 0;
+        for (int cell = 0; cell < this.cells; cell++) {
+            sum += this.distance[gs.tileAt(cell) * this.cells + cell];
+        }
+        for (int i = 0; i < this.rows; i++) {
+            sum += 2 * this.rowConflicts(gs, i, -1, -1);
+        }
+        for (int j = 0; j < this.cols; j++) {
+            sum += 2 * this.colConflicts(gs, j, -1, -1);
+        }
+        return sum;
+    }
+
+    @Override
+    public int update(final int parentValue, final GameState child, final int tile, final int from, final int to) {
+        final int base = tile * this.cells;
+        int value = parentValue - this.distance[base + from] + this.distance[base + to];
+        if (from / this.cols == to / this.cols) {
+            value += 2 * (this.colConflicts(child, from % this.cols, -1, -1) - this.colConflicts(child, from % this.cols, from, to));
+            value += 2 * (this.colConflicts(child, to % this.cols, -1, -1) - this.colConflicts(child, to % this.cols, from, to));
+        } else {
+            value += 2 * (this.rowConflicts(child, from / this.cols, -1, -1) - this.rowConflicts(child, from / this.cols, from, to));
+            value += 2 * (this.rowConflicts(child, to / this.cols, -1, -1) - this.rowConflicts(child, to / this.cols, from, to));
+        }
+        return value;
+    }
+
+    /**
+     * tileAt
+     *
+     * @param gs   - state to read
+     * @param cell - row-major cell index
+     * @param a    - cell whose content is read from b, -1 for none
+     * @param b    - cell whose content is read from a
+     * @return tile at cell, as it was before the move between a and b if one is given
+     */
+    private static int tileAt(final GameState gs, final int cell, final int a, final int b) {
+        if (cell == a) {
+            return gs.tileAt(b);
+        }
+        if (cell == b) {
+            return gs.tileAt(a);
+        }
+        return gs.tileAt(cell);
+    }
+
+    private int rowConflicts(final GameState gs, final int row, final int a, final int b) {
+        final int[] line = this.scratch.get();
+        int length = 0;
+        for (int j = 0; j < this.cols; j++) {
+            final int tile = LinearConflictHeuristic.tileAt(gs, row * this.cols + j, a, b);
+            if (tile != 0 && this.goalRow[tile] == row) {
+                line[length++] = this.goalCol[tile];
+            }
+        }
+        return length - LinearConflictHeuristic.longestIncreasing(line, length);
+    }
+
+    private int colConflicts(final GameState gs, final int col, final int a, final int b) {
+        final int[] line = this.scratch.get();
+        int length = 0;
+        for (int i = 0; i < this.rows; i++) {
+            final int tile = LinearConflictHeuristic.tileAt(gs, i * this.cols + col, a, b);
+            if (tile != 0 && this.goalCol[tile] == col) {
+                line[length++] = this.goalRow[tile];
+            }
+        }
+        return length - LinearConflictHeuristic.longestIncreasing(line, length);
+    }
+
+    /**
+     * longestIncreasing
+     *
+     * @param values - distinct goal offsets of the tiles in a line, the second half of the array is used as work space
+     * @param length - number of values in use
+     * @return length of the longest increasing subsequence, the tiles that can stay in the line
+     */
+    private static int longestIncreasing(final int[] values, final int length) {
+        final int runs = values.length >>> 1;
+        int best = 0;
+        for (int i = 0; i < length; i++) {
+            int run = 1;
+            for (int j = 0; j < i; j++) {
+                if (values[j] < values[i]) {
+                    run = Math.max(run, values[runs + j] + 1);
+                }
+            }
+            values[runs + i] = run;
+            best = Math.max(best, run);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,433 @@
+package src;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * The class MacroSolver solves boards of any size without searching, the way a person would. The top row or the
+ * left column of the unsolved region, whichever is longer, is filled in tile by tile and locked, which leaves a
+ * smaller region to solve, until only a 2x2 region is left and is rotated into place. The last two tiles of a row
+ * go in together, see finishLine.
+ * Columns are solved the same way with rows and columns swapped.
+ * Tiles are moved one cell at a time towards their goal, the blank being routed to the cell in front of the tile
+ * by a breadth-first search around the tile and the locked cells. Every step of a tile costs at most
+ * O(rows * cols), so a board is solved in polynomial time, and the solution is valid but not optimal.
+ * The solver can instead stop at a region of at most 3x3 cells and solve it optimally with A*.
+ */
+public class MacroSolver {
+    private final Solver solver;
+    private final PuzzleContext context;
+    private final int rows;
+    private final int cols;
+    private final int[] board;
+    private final int[] where;
+    private final boolean[] locked;
+    private final int[] queue;
+    private final int[] previous;
+    private final int[] seen;
+    private final int[] wanted;
+    private int stamp;
+    private int blank;
+    private int top;
+    private int left;
+    private int[] path = new int[64];
+    private int length;
+    private long expanded;
+    private boolean limitReached;
+
+    /**
+     * MacroSolver
+     *
+     * @param solver  - solver whose limits bound the search, every move counting as a visited node
+     * @param initial - state to solve, left unchanged
+     */
+    public MacroSolver(final Solver solver, final GameState initial) {
+        this.solver = solver;
+        this.context = initial.getContext();
+        this.rows = this.context.getRows();
+        this.cols = this.context.getCols();
+        final int cells = this.context.getCells();
+        this.board = new int[cells];
+        this.where = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            this.board[cell] = initial.tileAt(cell);
+            this.where[this.board[cell]] = cell;
+        }
+        this.blank = initial.getBlank();
+        this.locked = new boolean[cells];
+        this.queue = new int[cells];
+        this.previous = new int[cells];
+        this.seen = new int[cells];
+        this.wanted = new int[cells];
+    }
+
+    /**
+     * solve
+     *
+     * @param finishOptimally - true to solve the last region of at most 3x3 cells optimally with A*,
+     *                        false to reduce the board down to a 2x2 region and rotate it
+     * @return blank positions along the solution, null if the solver's limits stopped it
+     */
+    public int[] solve(final boolean finishOptimally) {
+        if (this.rows == 1 || this.cols == 1) {
+            this.route(this.rows * this.cols - 1, -1);
+            return this.limitReached ? null : this.getPath();
+        }
+        final int last = finishOptimally ? 3 : 2;
+        while (!this.limitReached && (this.rows - this.top > last || this.cols - this.left > last)) {
+            if (this.rows - this.top >= this.cols - this.left) {
+                this.solveLine(this.top, this.left, this.cols - 1, false);
+                this.top++;
+            } else {
+                this.solveLine(this.left, this.top, this.rows - 1, true);
+                this.left++;
+            }
+        }
+        if (!this.limitReached) {
+            if (finishOptimally) {
+                this.finishWithAStar();
+            } else {
+                this.rotateLastSquare();
+            }
+        }
+        return this.limitReached ? null : this.getPath();
+    }
+
+    /**
+     * getExpanded
+     *
+     * @return number of moves made plus the nodes expanded by the final A* search
+     */
+    public long getExpanded() {
+        return this.expanded;
+    }
+
+    /**
+     * isLimitReached
+     *
+     * @return true if the solver's limits stopped the last solve
+     */
+    public boolean isLimitReached() {
+        return this.limitReached;
+    }
+
+    private int[] getPath() {
+        final int[] moves = new int[this.length];
+        System.arraycopy(this.path, 0, moves, 0, this.length);
+        return moves;
+    }
+
+    /**
+     * cell
+     *
+     * @param line       - row of the line being solved, or its column if transposed
+     * @param along      - position along the line
+     * @param transposed - true when solving a column
+     * @return row-major index of the cell
+     */
+    private int cell(final int line, final int along, final boolean transposed) {
+        return transposed ? along * this.cols + line : line * this.cols + along;
+    }
+
+    /**
+     * solveLine
+     * Places and locks the tiles of one row, or one column if transposed, of the unsolved region.
+     * The region is at least three lines deep, so tiles can be moved around beyond the line.
+     *
+     * @param line       - row to solve, or column if transposed
+     * @param start      - first position along the line inside the region
+     * @param end        - last position along the line
+     * @param transposed - true to solve a column
+     */
+    private void solveLine(final int line, final int start, final int end, final boolean transposed) {
+        for (int along = start; along < end - 1 && !this.limitReached; along++) {
+            final int target = this.cell(line, along, transposed);
+            this.place(this.context.goalTile(target), target);
+            this.locked[target] = true;
+        }
+        if (!this.limitReached) {
+            this.finishLine(line, end, transposed);
+        }
+        this.locked[this.cell(line, end - 1, transposed)] = true;
+        this.locked[this.cell(line, end, transposed)] = true;
+    }
+
+    /**
+     * finishLine
+     * Puts the last two tiles of a line in place together. Placing them one after the other fails when the blank
+     * is walled in behind the first one, so the first is placed in the corner and the second brought into the
+     * three by two window at the end of the line, then a breadth-first search over the positions of the blank and
+     * both tiles in the window, the other tiles being interchangeable, finds the shortest way to finish.
+     *
+     * @param line       - row being solved, or column if transposed
+     * @param end        - last position along the line
+     * @param transposed - true when solving a column
+     * @throws IllegalStateException if the window cannot be solved, which the shape of the window rules out
+     */
+    private void finishLine(final int line, final int end, final boolean transposed) {
+        final int[] window = new int[6];
+        for (int k = 0; k < window.length; k++) {
+            window[k] = this.cell(line + k / 2, end - 1 + k % 2, transposed);
+        }
+        final int first = this.context.goalTile(window[0]);
+        final int second = this.context.goalTile(window[1]);
+        if (this.where[first] == window[0] && this.where[second] == window[1]) {
+            return;
+        }
+        this.place(first, window[1]);
+        this.locked[window[1]] = true;
+        if (MacroSolver.indexOf(window, this.where[second]) < 0) {
+            this.place(second, window[5]);
+        }
+        final int secondCell = this.where[second];
+        this.locked[secondCell] = true;
+        final int entry = this.search(-1, window, window.length);
+        this.locked[window[1]] = false;
+        this.locked[secondCell] = false;
+        if (this.limitReached) {
+            return;
+        }
+        if (entry < 0) {
+            throw new IllegalStateException("Blank cannot reach the end of line " + line);
+        }
+        this.follow(entry);
+        final int states = window.length * window.length * window.length;
+        final int[] parent = new int[states];
+        Arrays.fill(parent, -1);
+        final int[] order = new int[states];
+        final int start = (MacroSolver.indexOf(window, this.blank) * window.length
+                + MacroSolver.indexOf(window, this.where[first])) * window.length
+                + MacroSolver.indexOf(window, this.where[second]);
+        parent[start] = start;
+        order[0] = start;
+        int head = 0;
+        int tail = 1;
+        int goal = -1;
+        while (head < tail && goal < 0) {
+            final int state = order[head++];
+            final int gap = state / (window.length * window.length);
+            final int firstAt = state / window.length % window.length;
+            final int secondAt = state % window.length;
+            if (firstAt == 0 && secondAt == 1) {
+                goal = state;
+            }
+            for (final int next : new int[]{gap - 2, gap + 2, gap ^ 1}) {
+                if (next >= 0 && next < window.length) {
+                    final int moved = (next * window.length + (firstAt == next ? gap : firstAt)) * window.length
+                            + (secondAt == next ? gap : secondAt);
+                    if (parent[moved] < 0) {
+                        parent[moved] = state;
+                        order[tail++] = moved;
+                    }
+                }
+            }
+        }
+        if (goal < 0) {
+            throw new IllegalStateException("Cannot finish line " + line);
+        }
+        int steps = 0;
+        for (int state = goal; state != start; state = parent[state]) {
+            order[steps++] = window[state / (window.length * window.length)];
+        }
+        while (steps > 0) {
+            this.slide(order[--steps]);
+        }
+    }
+
+    private static int indexOf(final int[] cells, final int cell) {
+        for (int k = 0; k < cells.length; k++) {
+            if (cells[k] == cell) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * place
+     * Moves a tile to a cell one step at a time, each step bringing it closer, by routing the blank to the cell
+     * the tile moves into and sliding the tile there.
+     *
+     * @param tile   - tile to move, not locked
+     * @param target - cell the tile is moved to
+     * @throws IllegalStateException if the blank cannot reach any cell closer to the target, which the order the
+     *                               tiles are placed in rules out
+     */
+    private void place(final int tile, final int target) {
+        final int targetRow = target / this.cols;
+        final int targetCol = target % this.cols;
+        final int[] closer = new int[2];
+        while (this.where[tile] != target && !this.limitReached) {
+            final int from = this.where[tile];
+            final int distance = Math.abs(from / this.cols - targetRow) + Math.abs(from % this.cols - targetCol);
+            int count = 0;
+            for (final int next : this.context.neighbours(from)) {
+                if (Math.abs(next / this.cols - targetRow) + Math.abs(next % this.cols - targetCol) < distance) {
+                    closer[count++] = next;
+                }
+            }
+            final int best = this.search(from, closer, count);
+            if (best < 0) {
+                throw new IllegalStateException("Blank cannot reach tile " + tile + " at cell " + from);
+            }
+            this.follow(best);
+            this.slide(from);
+        }
+    }
+
+    /**
+     * route
+     * Moves the blank to a cell by a shortest path through the unlocked cells of the region.
+     *
+     * @param target  - cell the blank is moved to
+     * @param blocked - cell the blank must not pass through, -1 for none
+     */
+    private void route(final int target, final int blocked) {
+        if (this.limitReached) {
+            return;
+        }
+        if (this.search(blocked, new int[]{target}, 1) < 0) {
+            throw new IllegalStateException("Blank cannot reach cell " + target);
+        }
+        this.follow(target);
+    }
+
+    /**
+     * search
+     * Breadth-first search from the blank over the unlocked cells of the region, stopping at the first of the
+     * targets reached, which is the nearest. Each cell reached has in previous the cell it was reached from.
+     * The blank is usually close to the tile it works around, so the search rarely covers much of the region.
+     *
+     * @param blocked - cell the blank must not pass through, -1 for none
+     * @param targets - cells the blank may go to
+     * @param count   - number of targets
+     * @return the nearest target reachable, -1 if none is
+     */
+    private int search(final int blocked, final int[] targets, final int count) {
+        this.stamp++;
+        for (int t = 0; t < count; t++) {
+            this.wanted[targets[t]] = this.stamp;
+        }
+        if (this.wanted[this.blank] == this.stamp) {
+            return this.blank;
+        }
+        int head = 0;
+        int tail = 0;
+        this.queue[tail++] = this.blank;
+        this.seen[this.blank] = this.stamp;
+        while (head < tail) {
+            final int cell = this.queue[head++];
+            for (final int next : this.context.neighbours(cell)) {
+                if (this.seen[next] != this.stamp && next != blocked && !this.locked[next]
+                        && next / this.cols >= this.top && next % this.cols >= this.left) {
+                    this.seen[next] = this.stamp;
+                    this.previous[next] = cell;
+                    if (this.wanted[next] == this.stamp) {
+                        return next;
+                    }
+                    this.queue[tail++] = next;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * follow
+     * Moves the blank along the path found by the last search.
+     *
+     * @param target - cell reached by the last search
+     */
+    private void follow(final int target) {
+        int steps = 0;
+        for (int cell = target; cell != this.blank; cell = this.previous[cell]) {
+            this.queue[steps++] = cell;
+        }
+        while (steps > 0) {
+            this.slide(this.queue[--steps]);
+        }
+    }
+
+    /**
+     * slide
+     * Moves the blank to an adjacent cell, recording the move and counting it against the solver's limits.
+     *
+     * @param to - cell next to the blank
+     */
+    private void slide(final int to) {
+        final int tile = this.board[to];
+        this.board[this.blank] = tile;
+        this.where[tile] = this.blank;
+        this.board[to] = 0;
+        this.where[0] = to;
+        this.blank = to;
+        if (this.length == this.path.length) {
+            final int[] grown = new int[this.length * 2];
+            System.arraycopy(this.path, 0, grown, 0, this.length);
+            this.path = grown;
+        }
+        this.path[this.length++] = to;
+        this.expanded++;
+        if (!this.limitReached && this.solver.limitReached()) {
+            this.limitReached = true;
+        }
+    }
+
+    /**
+     * rotateLastSquare
+     * Brings the blank to the last cell and cycles the three tiles of the remaining 2x2 region until they are in
+     * place, which takes at most three turns on a solvable board.
+     */
+    private void rotateLastSquare() {
+        final int last = this.rows * this.cols - 1;
+        this.route(last, -1);
+        final int[] cycle = {last - this.cols, last - this.cols - 1, last - 1, last};
+        for (int turn = 0; turn < 3 && !this.isGoal(cycle); turn++) {
+            for (final int cell : cycle) {
+                this.slide(cell);
+            }
+        }
+    }
+
+    private boolean isGoal(final int[] cells) {
+        for (final int cell : cells) {
+            if (this.board[cell] != this.context.goalTile(cell)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * finishWithAStar
+     * Solves the remaining region optimally. Every tile outside it is in place, so the region is a puzzle of its
+     * own: each tile is renamed after its goal cell within the region, and the blank's goal is its last cell.
+     */
+    private void finishWithAStar() {
+        final int height = this.rows - this.top;
+        final int width = this.cols - this.left;
+        final int[][] region = new int[height][width];
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                final int tile = this.board[(this.top + r) * this.cols + this.left + c];
+                if (tile != 0) {
+                    final int goal = this.context.goalCell(tile);
+                    region[r][c] = (goal / this.cols - this.top) * width + goal % this.cols - this.left + 1;
+                }
+            }
+        }
+        final Solver local = new Solver(region);
+        local.AStarSolve(new PrintWriter(Writer.nullWriter()),
+                new LinearConflictHeuristic(local.rootNode.state.getGoalBoard()));
+        this.expanded += local.getNodesExpanded();
+        final Node goal = local.getSolution();
+        final int[] steps = new int[goal.getCost()];
+        for (Node n = goal; n.parent != null; n = n.parent) {
+            steps[n.getCost() - 1] = n.state.getBlank();
+        }
+        for (final int step : steps) {
+            this.slide((this.top + step / width) * this.cols + this.left + step % width);
+        }
+    }
+}
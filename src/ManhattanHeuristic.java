@@ -0,0 +1,62 @@
+package src;
+
+/**
+ * The class ManhattanHeuristic sums, over every tile, the number of rows and columns between
+ * its cell and its goal cell. Distances are precomputed per tile and cell for the shape of the goal board,
+ * so a move changes the estimate by the difference of two table entries.
+ */
+public class ManhattanHeuristic implements Heuristic {
+    private final int cells;
+    private final int[] distance;
+
+    /**
+     * ManhattanHeuristic
+     *
+     * @param goal - board whose layout the distances are measured to, any rows x cols
+     */
+    public ManhattanHeuristic(final int[][] goal) {
+        this.cells = goal.length * goal[0].length;
+        this.distance = ManhattanHeuristic.distanceTable(goal);
+    }
+
+    /**
+     * distanceTable
+     *
+     * @param goal - goal board
+     * @return table where entry tile * cells + cell is the Manhattan distance of tile from cell to its goal cell,
+     * zero for the blank
+     */
+    static int[] distanceTable(final int[][] goal) {
+        final int rows = goal.length;
+        final int cols = goal[0].length;
+        final int cells = rows * cols;
+        final int[] table = new int[cells * cells];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                final int tile = goal[i][j];
+                if (tile == 0) {
+                    continue;
+                }
+                for (int cell = 0; cell < cells; cell++) {
+                    table[tile * cells + cell] = Math.abs(cell / cols - i) + Math.abs(cell % cols - j);
+                }
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public int estimate(final GameState gs) {
+        int sum = 0;
+        for (int cell = 0; cell < this.cells; cell++) {
+            sum += this.distance[gs.tileAt(cell) * this.cells + cell];
+        }
+        return sum;
+    }
+
+    @Override
+    public int update(final int parentValue, final GameState child, final int tile, final int from, final int to) {
+        final int base = tile * this.cells;
+        return parentValue - this.distance[base + from] + this.distance[base + to];
+    }
+}
@@ -0,0 +1,329 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * The class MemoryBoundedSearch is a simplified memory-bounded A* (SMA*, Russell 1992).
+ * The search tree is kept explicitly and never holds more than a fixed number of nodes. When the budget is
+ * exceeded the leaf with the highest f value, shallowest first, is dropped and its f value is remembered by
+ * its parent. A parent with dropped children goes back on the open set under the lowest f value it forgot,
+ * so a dropped subtree is only regenerated once nothing else looks cheaper. Interior nodes carry the lowest
+ * f value below them, backed up from their children.
+ * The solution is optimal whenever the optimal path fits in the budget.
+ */
+public class MemoryBoundedSearch {
+
+    /**
+     * Rough heap footprint of one stored node: the entry, its GameState, its slot in the leaf set and in its
+     * parent's child list. Used to turn a byte budget into a node budget.
+     */
+    public static final int ESTIMATED_BYTES_PER_NODE = 200;
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+
+    private final Heuristic heuristicModel;
+    private final int maxNodes;
+    private final TreeSet<Entry> open;
+    private final GameState[] moveBuffer = new GameState[4];
+    private final Solver solver;
+    private int stored;
+    private long nextId;
+    private long expanded;
+    private long pruned;
+    private long regenerated;
+    private boolean limitReached;
+
+    /**
+     * MemoryBoundedSearch
+     *
+     * @param solver         - solver whose limits bound the search
+     * @param heuristicModel - admissible estimate of the distance to the goal
+     * @param maxNodes       - largest number of nodes kept at once, at least 8
+     */
+    public MemoryBoundedSearch(final Solver solver, final Heuristic heuristicModel, final int maxNodes) {
+        this.solver = solver;
+        this.heuristicModel = heuristicModel;
+        this.maxNodes = Math.max(8, maxNodes);
+        this.open = new TreeSet<>(Comparator.<Entry>comparingInt(e -> e.key)
+                .thenComparing(Comparator.<Entry>comparingInt(e -> e.depth).reversed())
+                .thenComparingLong(e -> e.id));
+    }
+
+    /**
+     * nodesForBytes
+     *
+     * @param bytes - heap budget in bytes
+     * @return node budget that roughly fits in it
+     */
+    public static int nodesForBytes(final long bytes) {
+        return (int) Math.min(Integer.MAX_VALUE, bytes / MemoryBoundedSearch.ESTIMATED_BYTES_PER_NODE);
+    }
+
+    /**
+     * solve
+     *
+     * @param root - initial state
+     * @return goal node of the solution path, null if there is none within the budget or the search was stopped
+     */
+    public Node solve(final GameState root) {
+        final int rootHeuristic = this.heuristicModel.estimate(root);
+        this.push(new Entry(root, null, 0, rootHeuristic, rootHeuristic), rootHeuristic);
+        this.stored = 1;
+        while (!this.open.isEmpty()) {
+            final Entry best = this.open.first();
+            if (best.key == MemoryBoundedSearch.INFINITY || best.key > 100) {
+                return null;
+            }
+            if (best.children == null && best.state.isGoal()) {
+                return MemoryBoundedSearch.toNode(best);
+            }
+            if (this.solver.limitReached()) {
+                this.limitReached = true;
+                return null;
+            }
+            this.remove(best);
+            this.expand(best);
+            while (this.stored > this.maxNodes && this.pruneWorst()) {
+                continue;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * push
+     *
+     * @param e   - entry to make selectable
+     * @param key - value it is selected and dropped by
+     */
+    private void push(final Entry e, final int key) {
+        this.remove(e);
+        e.key = key;
+        e.inOpen = true;
+        this.open.add(e);
+    }
+
+    /**
+     * remove
+     * Takes an entry out of the open set before its key changes, the TreeSet would lose track of it otherwise.
+     *
+     * @param e - entry that may or may not be selectable
+     */
+    private void remove(final Entry e) {
+        if (e.inOpen) {
+            this.open.remove(e);
+            e.inOpen = false;
+        }
+    }
+
+    /**
+     * expand
+     * Generates the children of an entry that are not in memory, skipping states already on its path: all of them
+     * for a leaf, the dropped ones for an interior node. Children at the depth limit imposed by the budget that
+     * are not goals can never be completed and get an infinite f value.
+     *
+     * @param e - entry being expanded, no longer in the open set
+     */
+    private void expand(final Entry e) {
+        this.expanded++;
+        final int base = e.children == null ? e.f : e.forgotten;
+        if (e.children == null) {
+            e.children = new ArrayList<>(4);
+        }
+        final boolean again = e.wasExpanded;
+        e.wasExpanded = true;
+        e.forgotten = MemoryBoundedSearch.INFINITY;
+        final int moveCount = e.state.successors(this.moveBuffer);
+        for (int m = 0; m < moveCount; m++) {
+            final GameState gs = this.moveBuffer[m];
+            if (e.onPath(gs) || e.hasChild(gs)) {
+                continue;
+            }
+            final int to = e.state.getBlank();
+            final int heuristic = this.heuristicModel.update(e.heuristic, gs, gs.tileAt(to), gs.getBlank(), to);
+            final int depth = e.depth + 1;
+            final int f = !gs.isGoal() && depth >= this.maxNodes - 1
+                    ? MemoryBoundedSearch.INFINITY : Math.max(base, depth + heuristic);
+            final Entry child = new Entry(gs, e, depth, heuristic, f);
+            e.children.add(child);
+            this.push(child, f);
+            this.stored++;
+            if (again) {
+                this.regenerated++;
+            }
+        }
+        if (e.children.isEmpty()) {
+            e.children = null;
+            e.f = MemoryBoundedSearch.INFINITY;
+            this.push(e, e.f);
+            MemoryBoundedSearch.backup(e.parent);
+        } else {
+            MemoryBoundedSearch.backup(e);
+        }
+    }
+
+    /**
+     * pruneWorst
+     * Drops the leaf with the highest f value, shallowest first, and records its f value in its parent,
+     * which goes back on the open set.
+     *
+     * @return false if no leaf other than the root is left to drop
+     */
+    private boolean pruneWorst() {
+        Entry worst = null;
+        for (final Entry e : this.open.descendingSet()) {
+            if (e.children == null && e.parent != null) {
+                worst = e;
+                break;
+            }
+        }
+        if (worst == null) {
+            return false;
+        }
+        this.remove(worst);
+        final Entry parent = worst.parent;
+        parent.children.remove(worst);
+        parent.forgotten = Math.min(parent.forgotten, worst.f);
+        this.stored--;
+        this.pruned++;
+        if (parent.children.isEmpty()) {
+            parent.children = null;
+            parent.f = parent.forgotten;
+            this.push(parent, parent.f);
+        } else {
+            this.push(parent, parent.forgotten);
+        }
+        return true;
+    }
+
+    /**
+     * backup
+     * Sets the f value of an interior node to the lowest f value among its children and forgotten children,
+     * and repeats for its ancestors while the value changes.
+     *
+     * @param e - interior node whose children changed, may be null
+     */
+    private static void backup(Entry e) {
+        while (e != null && e.children != null) {
+            int min = e.forgotten;
+            for (final Entry child : e.children) {
+                min = Math.min(min, child.f);
+            }
+            if (min == e.f) {
+                return;
+            }
+            e.f = min;
+            e = e.parent;
+        }
+    }
+
+    private static Node toNode(final Entry goal) {
+        if (goal == null) {
+            return null;
+        }
+        return new Node(goal.state, MemoryBoundedSearch.toNode(goal.parent), goal.depth, goal.heuristic);
+    }
+
+    /**
+     * getExpanded
+     *
+     * @return number of nodes expanded, regenerations included
+     */
+    public long getExpanded() {
+        return this.expanded;
+    }
+
+    /**
+     * getStored
+     *
+     * @return number of nodes currently kept
+     */
+    public int getStored() {
+        return this.stored;
+    }
+
+    /**
+     * getPruned
+     *
+     * @return number of leaves dropped to stay within the budget
+     */
+    public long getPruned() {
+        return this.pruned;
+    }
+
+    /**
+     * getRegenerated
+     *
+     * @return number of nodes generated again after having been dropped
+     */
+    public long getRegenerated() {
+        return this.regenerated;
+    }
+
+    /**
+     * isLimitReached
+     *
+     * @return true if the search stopped on one of the solver's limits
+     */
+    public boolean isLimitReached() {
+        return this.limitReached;
+    }
+
+    /**
+     * The class Entry is a node of the explicit search tree.
+     */
+    private final class Entry {
+        final GameState state;
+        final Entry parent;
+        final int depth;
+        final int heuristic;
+        final long id;
+        int f;
+        int key;
+        int forgotten = MemoryBoundedSearch.INFINITY;
+        boolean wasExpanded;
+        boolean inOpen;
+        ArrayList<Entry> children;
+
+        Entry(final GameState state, final Entry parent, final int depth, final int heuristic, final int f) {
+            this.state = state;
+            this.parent = parent;
+            this.depth = depth;
+            this.heuristic = heuristic;
+            this.f = f;
+            this.id = MemoryBoundedSearch.this.nextId++;
+        }
+
+        /**
+         * hasChild
+         *
+         * @param gs - state to look for
+         * @return true if one of the children in memory has state gs
+         */
+        boolean hasChild(final GameState gs) {
+            for (final Entry child : this.children) {
+                if (child.state.sameBoard(gs)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * onPath
+         *
+         * @param gs - state to look for
+         * @return true if gs is the state of this entry or of one of its ancestors
+         */
+        boolean onPath(final GameState gs) {
+            for (Entry e = this; e != null; e = e.parent) {
+                if (e.state.sameBoard(gs)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package src;
 
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * The class Node represents nodes.
@@ -12,6 +13,7 @@ public class Node {
     Node parent;
     private int cost;
     private int heuristic;
+    int queueIndex = -1;
 
     /**
      * Node
@@ -48,6 +50,16 @@ public class Node {
         return this.cost;
     }
 
+    /**
+     * setCost
+     * Used when a cheaper path to the node is found while it is still queued.
+     *
+     * @param cost - new cost of reaching this node from the initial node
+     */
+    void setCost(int cost) {
+        this.cost = cost;
+    }
+
     /**
      * getHeuristic
      *
@@ -57,6 +69,16 @@ public class Node {
         return this.heuristic;
     }
 
+    /**
+     * setHeuristic
+     * Used to evaluate the root node once the search knows which heuristic it runs with.
+     *
+     * @param heuristic - estimated distance from this node's state to the goal
+     */
+    void setHeuristic(int heuristic) {
+        this.heuristic = heuristic;
+    }
+
     /**
      * cloneNode
      *
@@ -93,4 +115,16 @@ public class Node {
         }
         return null;
     }
+
+    /**
+     * findNodeWithState
+     * looks up the node whose state is that specified as second argument in a state index
+     *
+     * @param nodeIndex - nodes keyed by their state
+     * @param gs        - state to look up
+     * @return n if node found, else null
+     */
+    public static Node findNodeWithState(Map<GameState, Node> nodeIndex, GameState gs) {
+        return nodeIndex.get(gs);
+    }
 }
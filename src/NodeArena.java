@@ -0,0 +1,258 @@
+package src;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * The class NodeArena stores the nodes of a search in columns of primitive arrays instead of one Node and one
+ * GameState object per node. A node is an index; its packed board, parent index, cost, heuristic, blank cell
+ * and queue position sit at that index in their columns. Columns grow by whole chunks, so growing
+ * never copies the nodes already stored, and a search allocates a few large arrays instead of millions of small
+ * objects that the garbage collector has to trace. The boards, the bulk of the data on large puzzles, can be kept
+ * off the heap in direct buffers.
+ * States are indexed by an open-addressing hash table of node indexes, so a lookup needs no key object.
+ * A node takes 8 bytes per packed word and about 30 more, where a Node with its GameState and hash map entry
+ * takes over 100.
+ */
+public class NodeArena {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << NodeArena.CHUNK_BITS;
+    private static final int CHUNK_MASK = NodeArena.CHUNK_SIZE - 1;
+
+    private final int wordCount;
+    private final boolean offHeap;
+    private final long[] scratch;
+    private final GameState rehashed;
+    private long[][] words = new long[16][];
+    private LongBuffer[] buffers = new LongBuffer[16];
+    private int[][] parents = new int[16][];
+    private int[][] costs = new int[16][];
+    private int[][] heuristics = new int[16][];
+    private int[][] blanks = new int[16][];
+    private int[][] queueIndexes = new int[16][];
+    private int[] table = new int[1 << 10];
+    private int size;
+
+    /**
+     * NodeArena
+     *
+     * @param shape   - any state of the puzzle searched, giving the size of a packed board
+     * @param offHeap - true to keep the boards in direct buffers outside the Java heap
+     */
+    public NodeArena(final GameState shape, final boolean offHeap) {
+        this.wordCount = shape.getWordCount();
+        this.offHeap = offHeap;
+        this.scratch = new long[this.wordCount];
+        this.rehashed = shape.clone();
+    }
+
+    /**
+     * add
+     * Stores a node and indexes its state. The node is not queued.
+     *
+     * @param gs        - state of the node, copied
+     * @param parent    - index of the parent node, -1 for the root
+     * @param cost      - cost of reaching the node from the root
+     * @param heuristic - estimated distance from the node's state to the goal
+     * @return index of the new node
+     */
+    public int add(final GameState gs, final int parent, final int cost, final int heuristic) {
+        final int node = this.size;
+        final int chunk = node >>> NodeArena.CHUNK_BITS;
+        final int slot = node & NodeArena.CHUNK_MASK;
+        if (slot == 0) {
+            this.addChunk(chunk);
+        }
+        if (this.offHeap) {
+            final LongBuffer buffer = this.buffers[chunk];
+            for (int w = 0; w < this.wordCount; w++) {
+                buffer.put(slot * this.wordCount + w, gs.getWord(w));
+            }
+        } else {
+            final long[] board = this.words[chunk];
+            for (int w = 0; w < this.wordCount; w++) {
+                board[slot * this.wordCount + w] = gs.getWord(w);
+            }
+        }
+        this.parents[chunk][slot] = parent;
+        this.costs[chunk][slot] = cost;
+        this.heuristics[chunk][slot] = heuristic;
+        this.blanks[chunk][slot] = gs.getBlank();
+        this.queueIndexes[chunk][slot] = -1;
+        this.size++;
+        if (this.size << 1 > this.table.length) {
+            this.growTable();
+        }
+        this.index(node, gs.hashCode());
+        return node;
+    }
+
+    /**
+     * addChunk
+     * Allocates the columns of a chunk of nodes, growing the chunk directories if needed.
+     *
+     * @param chunk - index of the chunk
+     */
+    private void addChunk(final int chunk) {
+        if (chunk == this.parents.length) {
+            final int grown = chunk << 1;
+            this.words = Arrays.copyOf(this.words, grown);
+            this.buffers = Arrays.copyOf(this.buffers, grown);
+            this.parents = Arrays.copyOf(this.parents, grown);
+            this.costs = Arrays.copyOf(this.costs, grown);
+            this.heuristics = Arrays.copyOf(this.heuristics, grown);
+            this.blanks = Arrays.copyOf(this.blanks, grown);
+            this.queueIndexes = Arrays.copyOf(this.queueIndexes, grown);
+        }
+        if (this.offHeap) {
+            this.buffers[chunk] = ByteBuffer.allocateDirect(NodeArena.CHUNK_SIZE * this.wordCount * Long.BYTES)
+                    .order(ByteOrder.nativeOrder()).asLongBuffer();
+        } else {
+            this.words[chunk] = new long[NodeArena.CHUNK_SIZE * this.wordCount];
+        }
+        this.parents[chunk] = new int[NodeArena.CHUNK_SIZE];
+        this.costs[chunk] = new int[NodeArena.CHUNK_SIZE];
+        this.heuristics[chunk] = new int[NodeArena.CHUNK_SIZE];
+        this.blanks[chunk] = new int[NodeArena.CHUNK_SIZE];
+        this.queueIndexes[chunk] = new int[NodeArena.CHUNK_SIZE];
+    }
+
+    /**
+     * find
+     *
+     * @param gs - state to look up
+     * @return index of the node holding the state, -1 if there is none
+     */
+    public int find(final GameState gs) {
+        final int hash = gs.hashCode();
+        final int mask = this.table.length - 1;
+        for (int i = NodeArena.spread(hash) & mask; this.table[i] != 0; i = (i + 1) & mask) {
+            if (this.holds(this.table[i] - 1, gs)) {
+                return this.table[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * holds
+     *
+     * @param node - index of a node
+     * @param gs   - state to compare with
+     * @return true if the node's board is that of gs
+     */
+    private boolean holds(final int node, final GameState gs) {
+        final int chunk = node >>> NodeArena.CHUNK_BITS;
+        final int base = (node & NodeArena.CHUNK_MASK) * this.wordCount;
+        for (int w = 0; w < this.wordCount; w++) {
+            final long word = this.offHeap ? this.buffers[chunk].get(base + w) : this.words[chunk][base + w];
+            if (word != gs.getWord(w)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * load
+     * Decodes the board of a node into a state, overwriting it.
+     *
+     * @param node   - index of a node
+     * @param target - state of the same puzzle to overwrite
+     */
+    public void load(final int node, final GameState target) {
+        final int chunk = node >>> NodeArena.CHUNK_BITS;
+        final int base = (node & NodeArena.CHUNK_MASK) * this.wordCount;
+        for (int w = 0; w < this.wordCount; w++) {
+            this.scratch[w] = this.offHeap ? this.buffers[chunk].get(base + w) : this.words[chunk][base + w];
+        }
+        target.setPacked(this.scratch, this.getBlank(node));
+    }
+
+    private void index(final int node, final int hash) {
+        final int mask = this.table.length - 1;
+        int i = NodeArena.spread(hash) & mask;
+        while (this.table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        this.table[i] = node + 1;
+    }
+
+    /**
+     * growTable
+     * Doubles the index. Hashes are not stored, so every board already indexed is decoded again to hash it.
+     */
+    private void growTable() {
+        this.table = new int[this.table.length << 1];
+        for (int node = 0; node < this.size - 1; node++) {
+            this.load(node, this.rehashed);
+            this.index(node, this.rehashed.hashCode());
+        }
+    }
+
+    /**
+     * spread
+     * Folds the high bits of a hash into the low bits the table is indexed with, as HashMap does.
+     *
+     * @param hash - hash of a board
+     * @return spread hash
+     */
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * size
+     *
+     * @return number of nodes stored
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public int getParent(final int node) {
+        return this.parents[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK];
+    }
+
+    public void setParent(final int node, final int parent) {
+        this.parents[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK] = parent;
+    }
+
+    public int getCost(final int node) {
+        return this.costs[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK];
+    }
+
+    public void setCost(final int node, final int cost) {
+        this.costs[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK] = cost;
+    }
+
+    public int getHeuristic(final int node) {
+        return this.heuristics[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK];
+    }
+
+    /**
+     * getBlank
+     *
+     * @param node - index of a node
+     * @return row-major index of the blank in the node's board, the cell the blank moved to on the way into the node
+     */
+    public int getBlank(final int node) {
+        return this.blanks[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK];
+    }
+
+    /**
+     * getQueueIndex
+     *
+     * @param node - index of a node
+     * @return position of the node in the ArenaQueue holding it, -1 if it is not queued
+     */
+    int getQueueIndex(final int node) {
+        return this.queueIndexes[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK];
+    }
+
+    void setQueueIndex(final int node, final int queueIndex) {
+        this.queueIndexes[node >>> NodeArena.CHUNK_BITS][node & NodeArena.CHUNK_MASK] = queueIndex;
+    }
+}
@@ -0,0 +1,194 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * The class NodeQueue is the frontier used by the best-first searches.
+ * It is a binary min-heap ordered on f = cost + heuristic, ties broken in favour of the higher cost
+ * so that nodes closer to the goal are expanded first. Each node records its own position in the heap,
+ * which lets decreaseKey restore the order in O(log n) when a cheaper path to a queued node is found.
+ * Searches that rank nodes differently supply their own order.
+ */
+public class NodeQueue {
+    static final Comparator<Node> BY_F = (a, b) -> {
+        final int fa = a.getCost() + a.getHeuristic();
+        final int fb = b.getCost() + b.getHeuristic();
+        return fa != fb ? Integer.compare(fa, fb) : Integer.compare(b.getCost(), a.getCost());
+    };
+
+    static final Comparator<Node> BY_HEURISTIC = Comparator.comparingInt(Node::getHeuristic);
+
+    private final Comparator<Node> order;
+    private Node[] heap = new Node[64];
+    private int size;
+
+    /**
+     * byWeightedF
+     *
+     * @param epsilon - weight of the heuristic
+     * @return order on cost + epsilon * heuristic, ties going to the higher cost
+     */
+    static Comparator<Node> byWeightedF(final double epsilon) {
+        return (a, b) -> {
+            final double fa = a.getCost() + epsilon * a.getHeuristic();
+            final double fb = b.getCost() + epsilon * b.getHeuristic();
+            return fa != fb ? Double.compare(fa, fb) : Integer.compare(b.getCost(), a.getCost());
+        };
+    }
+
+    /**
+     * NodeQueue
+     * Creates a queue ordered on f = cost + heuristic, ties going to the higher cost.
+     */
+    public NodeQueue() {
+        this(NodeQueue.BY_F);
+    }
+
+    /**
+     * NodeQueue
+     *
+     * @param order - order in which nodes are polled, lowest first
+     */
+    public NodeQueue(final Comparator<Node> order) {
+        this.order = order;
+    }
+
+    /**
+     * add
+     *
+     * @param n - node to queue
+     */
+    public void add(final Node n) {
+        if (this.size == this.heap.length) {
+            final Node[] grown = new Node[this.size << 1];
+            System.arraycopy(this.heap, 0, grown, 0, this.size);
+            this.heap = grown;
+        }
+        this.heap[this.size] = n;
+        n.queueIndex = this.size;
+        this.siftUp(this.size++);
+    }
+
+    /**
+     * peek
+     *
+     * @return node with the lowest f value, null if the queue is empty
+     */
+    public Node peek() {
+        return this.size == 0 ? null : this.heap[0];
+    }
+
+    /**
+     * poll
+     *
+     * @return removes and returns the node with the lowest f value, null if the queue is empty
+     */
+    public Node poll() {
+        if (this.size == 0) {
+            return null;
+        }
+        final Node top = this.heap[0];
+        final Node last = this.heap[--this.size];
+        this.heap[this.size] = null;
+        if (this.size > 0) {
+            this.heap[0] = last;
+            last.queueIndex = 0;
+            this.siftDown(0);
+        }
+        top.queueIndex = -1;
+        return top;
+    }
+
+    /**
+     * decreaseKey
+     * Restores the heap order after the cost or heuristic of a queued node has been lowered.
+     *
+     * @param n - queued node whose key decreased
+     */
+    public void decreaseKey(final Node n) {
+        this.siftUp(n.queueIndex);
+    }
+
+    /**
+     * drain
+     * Empties the queue.
+     *
+     * @return the nodes that were queued, in no particular order
+     */
+    public ArrayList<Node> drain() {
+        final ArrayList<Node> nodes = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) {
+            this.heap[i].queueIndex = -1;
+            nodes.add(this.heap[i]);
+            this.heap[i] = null;
+        }
+        this.size = 0;
+        return nodes;
+    }
+
+    /**
+     * size
+     *
+     * @return number of queued nodes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * isEmpty
+     *
+     * @return true if and only if no node is queued
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * before
+     *
+     * @param a - first node
+     * @param b - second node
+     * @return true if a should be expanded before b
+     */
+    private boolean before(final Node a, final Node b) {
+        return this.order.compare(a, b) < 0;
+    }
+
+    private void siftUp(int index) {
+        final Node n = this.heap[index];
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            final Node p = this.heap[parent];
+            if (!this.before(n, p)) {
+                break;
+            }
+            this.heap[index] = p;
+            p.queueIndex = index;
+            index = parent;
+        }
+        this.heap[index] = n;
+        n.queueIndex = index;
+    }
+
+    private void siftDown(int index) {
+        final Node n = this.heap[index];
+        final int half = this.size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            final int right = child + 1;
+            if (right < this.size && this.before(this.heap[right], this.heap[child])) {
+                child = right;
+            }
+            if (!this.before(this.heap[child], n)) {
+                break;
+            }
+            this.heap[index] = this.heap[child];
+            this.heap[index].queueIndex = index;
+            index = child;
+        }
+        this.heap[index] = n;
+        n.queueIndex = index;
+    }
+}
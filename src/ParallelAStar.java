@@ -0,0 +1,249 @@
+package src;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The class ParallelAStar is a hash-distributed A* (HDA*) search.
+ * Every state is owned by the worker its hash maps to. Each worker keeps its own open and closed sets and
+ * only ever expands states it owns; successors owned by another worker are handed over through that worker's
+ * lock-free inbox.
+ * Workers do not expand in global f order, so a state may be reopened when a cheaper path to it arrives, and
+ * the first goal found is only an incumbent. Nodes whose f is not below the incumbent cost are dropped.
+ * The search is over once every worker is idle and no node is in flight, at which point the incumbent is optimal.
+ * Every worker checks the shared SearchLimits once every SearchLimits.CHECK_INTERVAL expansions, counting the
+ * expansions of all workers against the node budget; the first to find a limit reached stops them all.
+ */
+public class ParallelAStar {
+    private final Worker[] workers;
+    private final Heuristic heuristicModel;
+    private final AtomicLong pending;
+    private final SearchLimits limits;
+    private long deadline;
+    private volatile SearchOutcome stop;
+    private volatile int incumbentCost = Integer.MAX_VALUE;
+    private Node incumbent;
+
+    /**
+     * ParallelAStar
+     *
+     * @param root           - node of the initial state
+     * @param heuristicModel - estimate of the distance to the goal, admissible for the solution to be optimal
+     * @param threads        - number of workers
+     * @param limits         - limits of the search, shared by all workers
+     */
+    public ParallelAStar(final Node root, final Heuristic heuristicModel, final int threads, final SearchLimits limits) {
+        this.heuristicModel = heuristicModel;
+        this.limits = limits;
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            this.workers[i] = new Worker(i);
+        }
+        this.pending = new AtomicLong(threads);
+        root.setHeuristic(heuristicModel.estimate(root.state));
+        this.workers[this.owner(root.state)].receive(root);
+    }
+
+    /**
+     * solve
+     * Runs the workers to completion or until a limit stops them.
+     *
+     * @return goal node of an optimal solution, null if there is none within the cost bound;
+     * if a limit stopped the search, the best solution found so far, which may not be optimal
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public Node solve() throws InterruptedException {
+        this.deadline = this.limits.deadlineFrom(System.nanoTime());
+        final Thread[] threads = new Thread[this.workers.length];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(this.workers[i], "hda-worker-" + i);
+            threads[i].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        return this.incumbent;
+    }
+
+    /**
+     * getStop
+     *
+     * @return the limit that stopped the search, null if it ran to completion
+     */
+    public SearchOutcome getStop() {
+        return this.stop;
+    }
+
+    /**
+     * getExpanded
+     *
+     * @return number of nodes expanded by each worker
+     */
+    public long[] getExpanded() {
+        final long[] expanded = new long[this.workers.length];
+        for (int i = 0; i < expanded.length; i++) {
+            expanded[i] = this.workers[i].expanded;
+        }
+        return expanded;
+    }
+
+    /**
+     * getUnexpanded
+     *
+     * @return number of generated nodes dropped unexpanded because they could not beat the solution
+     */
+    public long getUnexpanded() {
+        long unexpanded = 0;
+        for (final Worker worker : this.workers) {
+            unexpanded += worker.unexpanded;
+        }
+        return unexpanded;
+    }
+
+    private int owner(final GameState gs) {
+        return (gs.hashCode() & 0x7fffffff) % this.workers.length;
+    }
+
+    /**
+     * checkLimits
+     * Stops every worker if a limit has been reached.
+     *
+     * @return true if the search has to stop
+     */
+    private boolean checkLimits() {
+        long total = 0;
+        for (final Worker worker : this.workers) {
+            total += worker.expanded;
+        }
+        final SearchOutcome reached = this.limits.check(total, this.deadline);
+        if (reached != null && this.stop == null) {
+            this.stop = reached;
+        }
+        return this.stop != null;
+    }
+
+    private synchronized void offerSolution(final Node n) {
+        if (n.getCost() < this.incumbentCost) {
+            this.incumbent = n;
+            this.incumbentCost = n.getCost();
+        }
+    }
+
+    /**
+     * The class Worker expands the states owned by one thread.
+     * pending counts the workers that are not idle plus the nodes sitting in inboxes. An idle worker never takes a
+     * node out of its inbox: it waits while the inbox is empty and counts itself back in before draining it. A node
+     * in the inbox is itself counted, so pending cannot reach zero in between, and only reaches zero once no work
+     * is left anywhere.
+     */
+    private final class Worker implements Runnable {
+        private final int id;
+        private final ConcurrentLinkedQueue<Node> inbox = new ConcurrentLinkedQueue<>();
+        private final NodeQueue open = new NodeQueue();
+        private final HashMap<GameState, Node> openIndex = new HashMap<>();
+        private final HashMap<GameState, Integer> closed = new HashMap<>();
+        private final GameState[] moveBuffer = new GameState[4];
+        private volatile long expanded;
+        private volatile long unexpanded;
+
+        Worker(final int id) {
+            this.id = id;
+        }
+
+        @Override
+        public void run() {
+            final ParallelAStar search = ParallelAStar.this;
+            boolean idle = false;
+            while (search.stop == null) {
+                if (idle) {
+                    if (this.inbox.isEmpty()) {
+                        if (search.pending.get() == 0) {
+                            return;
+                        }
+                        LockSupport.parkNanos(50_000L);
+                        continue;
+                    }
+                    search.pending.incrementAndGet();
+                    idle = false;
+                }
+                Node received;
+                while ((received = this.inbox.poll()) != null) {
+                    this.receive(received);
+                    search.pending.decrementAndGet();
+                }
+                final Node top = this.open.peek();
+                if (top == null || top.getCost() + top.getHeuristic() >= search.incumbentCost) {
+                    while (!this.open.isEmpty()) {
+                        this.openIndex.remove(this.open.poll().state);
+                        this.unexpanded++;
+                    }
+                    idle = true;
+                    search.pending.decrementAndGet();
+                    if (search.pending.get() == 0) {
+                        return;
+                    }
+                    LockSupport.parkNanos(50_000L);
+                    continue;
+                }
+                final Node n = this.open.poll();
+                this.openIndex.remove(n.state);
+                if (n.state.isGoal()) {
+                    search.offerSolution(n);
+                    continue;
+                }
+                if (n.getCost() > 100) {
+                    continue;
+                }
+                if (this.expanded % SearchLimits.CHECK_INTERVAL == 0 && search.checkLimits()) {
+                    return;
+                }
+                this.closed.put(n.state, n.getCost());
+                this.expanded++;
+                final int moveCount = n.state.successors(this.moveBuffer);
+                for (int m = 0; m < moveCount; m++) {
+                    final GameState gs = this.moveBuffer[m];
+                    final int heuristic = Solver.evaluate(search.heuristicModel, n, gs);
+                    if (n.getCost() + 1 + heuristic >= search.incumbentCost) {
+                        this.unexpanded++;
+                        continue;
+                    }
+                    final Node child = new Node(gs, n, n.getCost() + 1, heuristic);
+                    final int owner = search.owner(gs);
+                    if (owner == this.id) {
+                        this.receive(child);
+                    } else {
+                        search.pending.incrementAndGet();
+                        search.workers[owner].inbox.add(child);
+                    }
+                }
+            }
+        }
+
+        /**
+         * receive
+         * Queues a node unless its state has already been reached at no greater cost.
+         *
+         * @param n - node owned by this worker
+         */
+        void receive(final Node n) {
+            final Integer closedCost = this.closed.get(n.state);
+            if (closedCost != null) {
+                if (closedCost <= n.getCost()) {
+                    return;
+                }
+                this.closed.remove(n.state);
+            }
+            final Node queued = this.openIndex.get(n.state);
+            if (queued == null) {
+                this.open.add(n);
+                this.openIndex.put(n.state, n);
+            } else if (n.getCost() < queued.getCost()) {
+                queued.parent = n.parent;
+                queued.setCost(n.getCost());
+                this.open.decreaseKey(queued);
+            }
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package src;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The class ParallelDepthFirst is a depth-bounded tree search split over a ForkJoinPool. It keeps no open or closed
+ * set: each task owns one board, modified in place and restored on backtrack, and the blank positions along its
+ * path, so memory is bounded by the depth. The move that would put the blank straight back where it came from is
+ * never made, which removes every cycle of length two.
+ * The levels near the root are always expanded into one task per subtree. Below them a task keeps searching on its
+ * own unless its worker has no queued task left for idle workers to steal, in which case it splits the node it is
+ * at, so subtrees of very different sizes still keep every worker busy.
+ * The first task to reach the goal publishes its path and every task stops at the next node it visits. Every task
+ * checks the shared SearchLimits once every SearchLimits.CHECK_INTERVAL expansions, counting the expansions of
+ * all tasks against the node budget.
+ */
+public class ParallelDepthFirst {
+    private static final int MIN_SPLIT_DEPTH = 6;
+
+    private final GameState root;
+    private final ForkJoinPool pool;
+    private final SearchLimits limits;
+    private final long deadline;
+    private final int rootSplitDepth;
+    private final AtomicLong expanded = new AtomicLong();
+    private final AtomicReference<int[]> solution = new AtomicReference<>();
+    private volatile SearchOutcome stop;
+    private int bound;
+
+    /**
+     * ParallelDepthFirst
+     *
+     * @param root   - initial state, not modified
+     * @param pool   - pool the subtrees are searched in
+     * @param limits - limits of the search, shared by all tasks and all calls to search
+     */
+    public ParallelDepthFirst(final GameState root, final ForkJoinPool pool, final SearchLimits limits) {
+        this.root = root;
+        this.pool = pool;
+        this.limits = limits;
+        this.deadline = limits.deadlineFrom(System.nanoTime());
+        int depth = 0;
+        while (1 << depth < pool.getParallelism() * 8) {
+            depth++;
+        }
+        this.rootSplitDepth = depth;
+    }
+
+    /**
+     * search
+     * Searches every path of at most bound moves, stopping at the first goal any task finds.
+     *
+     * @param bound - largest number of moves explored
+     * @return blank positions along a solution of at most bound moves, the root's first, null if there is none
+     * or a limit stopped the search
+     */
+    public int[] search(final int bound) {
+        if (this.stop != null) {
+            return null;
+        }
+        this.bound = bound;
+        this.solution.set(null);
+        final int[] path = new int[bound + 1];
+        path[0] = this.root.getBlank();
+        this.pool.invoke(new Subtree(this.root.clone(), path, 0));
+        return this.solution.get();
+    }
+
+    /**
+     * getStop
+     *
+     * @return the limit that stopped the search, null if it ran to completion
+     */
+    public SearchOutcome getStop() {
+        return this.stop;
+    }
+
+    /**
+     * getExpanded
+     *
+     * @return number of nodes expanded by every call to search so far
+     */
+    public long getExpanded() {
+        return this.expanded.get();
+    }
+
+    /**
+     * blankDistance
+     * Every move takes the blank one cell, so a solution has at least as many moves as the blank is cells away from
+     * its goal cell, and the same parity: an iterative deepening can start at that depth and go up two at a time.
+     *
+     * @param gs - a state
+     * @return Manhattan distance of the blank from its goal cell
+     */
+    public static int blankDistance(final GameState gs) {
+        final int cols = gs.getCols();
+        final int blank = gs.getBlank();
+        final int goal = gs.getContext().goalCell(0);
+        return Math.abs(blank / cols - goal / cols) + Math.abs(blank % cols - goal % cols);
+    }
+
+    /**
+     * checkLimits
+     * Adds a task's expansions to the total and stops every task if a limit has been reached.
+     *
+     * @param count - expansions since the task last reported
+     * @return true if the search has to stop
+     */
+    private boolean checkLimits(final long count) {
+        final SearchOutcome reached = this.limits.check(this.expanded.addAndGet(count), this.deadline);
+        if (reached != null && this.stop == null) {
+            this.stop = reached;
+        }
+        return this.stop != null;
+    }
+
+    /**
+     * The class Subtree searches every path below one node.
+     */
+    private final class Subtree extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final GameState board;
+        private final int[] path;
+        private final int depth;
+        private long count;
+
+        /**
+         * Subtree
+         *
+         * @param board - state of the node, owned by the task
+         * @param path  - blank positions from the root to the node, owned by the task
+         * @param depth - number of moves from the root to the node
+         */
+        Subtree(final GameState board, final int[] path, final int depth) {
+            this.board = board;
+            this.path = path;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            this.descend(this.depth);
+            ParallelDepthFirst.this.expanded.addAndGet(this.count);
+        }
+
+        /**
+         * descend
+         * Searches below the board at the given depth, on the board in place.
+         *
+         * @param depth - number of moves from the root to the board
+         * @return true if the search has to stop, the goal having been found or a limit reached
+         */
+        private boolean descend(final int depth) {
+            final ParallelDepthFirst search = ParallelDepthFirst.this;
+            if (search.solution.get() != null || search.stop != null) {
+                return true;
+            }
+            if (this.board.isGoal()) {
+                search.solution.compareAndSet(null, Arrays.copyOf(this.path, depth + 1));
+                return true;
+            }
+            if (depth >= search.bound) {
+                return false;
+            }
+            if (++this.count == SearchLimits.CHECK_INTERVAL) {
+                this.count = 0;
+                if (search.checkLimits(SearchLimits.CHECK_INTERVAL)) {
+                    return true;
+                }
+            }
+            final int blank = this.board.getBlank();
+            final int previousBlank = depth == 0 ? -1 : this.path[depth - 1];
+            if (depth < search.rootSplitDepth || (search.bound - depth >= ParallelDepthFirst.MIN_SPLIT_DEPTH
+                    && RecursiveAction.getSurplusQueuedTaskCount() <= 0)) {
+                return this.split(depth, blank, previousBlank);
+            }
+            for (final int to : this.board.getNeighbours(blank)) {
+                if (to == previousBlank) {
+                    continue;
+                }
+                this.board.moveBlank(to);
+                this.path[depth + 1] = to;
+                if (this.descend(depth + 1)) {
+                    return true;
+                }
+                this.board.moveBlank(blank);
+            }
+            return false;
+        }
+
+        /**
+         * split
+         * Hands every child of the board to a task of its own and waits for them, idle workers stealing them.
+         *
+         * @param depth         - number of moves from the root to the board
+         * @param blank         - position of the blank on the board
+         * @param previousBlank - position of the blank before the last move, -1 at the root
+         * @return true if the search has to stop
+         */
+        private boolean split(final int depth, final int blank, final int previousBlank) {
+            final ArrayList<Subtree> children = new ArrayList<>(4);
+            for (final int to : this.board.getNeighbours(blank)) {
+                if (to == previousBlank) {
+                    continue;
+                }
+                final GameState child = this.board.clone();
+                child.moveBlank(to);
+                final int[] childPath = this.path.clone();
+                childPath[depth + 1] = to;
+                children.add(new Subtree(child, childPath, depth + 1));
+            }
+            RecursiveAction.invokeAll(children);
+            final ParallelDepthFirst search = ParallelDepthFirst.this;
+            return search.solution.get() != null || search.stop != null;
+        }
+    }
+}
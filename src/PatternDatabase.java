@@ -0,0 +1,439 @@
+package src;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class PatternDatabase is an additive pattern database heuristic.
+ * The tiles are split into disjoint patterns and, for each pattern, a table holds the number of moves
+ * of pattern tiles needed to bring them home from every placement. Moves of the other tiles are free,
+ * so the tables can be summed and the result is still admissible.
+ * Tables are built by a backward breadth-first search from the goal, saved to disk and memory-mapped
+ * when they are next needed.
+ */
+public class PatternDatabase implements Heuristic {
+
+    static final int[][] PARTITION_4X4_663 = {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+    static final int[][] PARTITION_3X4 = {{1, 2, 5, 6, 9, 10}, {3, 4, 7, 8, 11}};
+    static final int[][] PARTITION_2X5 = {{1, 2, 6, 7}, {3, 4, 5, 8, 9}};
+
+    private static final int MAGIC = 0x50444231;
+    private static final long MAX_SEARCH_STATES = 1L << 28;
+    private static final ConcurrentHashMap<Long, PatternDatabase> DEFAULTS = new ConcurrentHashMap<>();
+
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int[][] patterns;
+    private final ByteBuffer[] tables;
+    private final ThreadLocal<int[]> positions;
+
+    /**
+     * PatternDatabase
+     *
+     * @param rows     - number of rows on the board
+     * @param cols     - number of columns on the board
+     * @param patterns - disjoint groups of tiles
+     * @param tables   - one table per pattern, indexed by the rank of the pattern tile positions
+     */
+    private PatternDatabase(final int rows, final int cols, final int[][] patterns, final ByteBuffer[] tables) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.patterns = patterns;
+        this.tables = tables;
+        this.positions = ThreadLocal.withInitial(() -> new int[this.cells]);
+    }
+
+    /**
+     * forBoard
+     * Loads the default partition for the board shape from the pdb directory, building and saving
+     * any table that is not there yet. Each shape is loaded once and the database shared from then on; threads
+     * asking for a shape while it is being loaded wait for it instead of building the same tables again.
+     *
+     * @param board - any board of the shape to solve
+     * @return pattern database for boards of that shape
+     * @throws IOException if a table cannot be read or written
+     */
+    public static PatternDatabase forBoard(final int[][] board) throws IOException {
+        final long shape = ((long) board.length << 32) | board[0].length;
+        try {
+            return PatternDatabase.DEFAULTS.computeIfAbsent(shape, key -> {
+                try {
+                    return PatternDatabase.load(new File("pdb"), board, PatternDatabase.defaultPartition(board.length, board[0].length));
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * load
+     * Memory-maps the table of every pattern from the given directory, building and saving the missing ones first.
+     *
+     * @param directory - where tables are kept
+     * @param board     - any board of the shape to solve
+     * @param patterns  - disjoint groups of tiles
+     * @return pattern database over the given patterns
+     * @throws IOException if a table cannot be read or written
+     */
+    public static PatternDatabase load(final File directory, final int[][] board, final int[][] patterns) throws IOException {
+        final int rows = board.length;
+        final int cols = board[0].length;
+        final int[][] goal = PuzzleContext.of(rows, cols).getGoalBoard();
+        final ByteBuffer[] tables = new ByteBuffer[patterns.length];
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        for (int p = 0; p < patterns.length; p++) {
+            final File file = new File(directory, PatternDatabase.fileName(rows, cols, patterns[p]));
+            if (!file.isFile()) {
+                PatternDatabase.save(file, rows, cols, patterns[p], PatternDatabase.build(goal, patterns[p]));
+            }
+            tables[p] = PatternDatabase.map(file, rows, cols, patterns[p]);
+        }
+        return new PatternDatabase(rows, cols, patterns, tables);
+    }
+
+    /**
+     * defaultPartition
+     *
+     * @param rows - number of rows on the board
+     * @param cols - number of columns on the board
+     * @return the 6-6-3 partition for 4x4, the 6-5 partition for 3x4, the 4-5 partition for 2x5,
+     * otherwise the tiles in column-major order split into groups small enough to build.
+     */
+    static int[][] defaultPartition(final int rows, final int cols) {
+        if (rows == 4 && cols == 4) {
+            return PatternDatabase.PARTITION_4X4_663;
+        }
+        if (rows == 3 && cols == 4) {
+            return PatternDatabase.PARTITION_3X4;
+        }
+        if (rows == 2 && cols == 5) {
+            return PatternDatabase.PARTITION_2X5;
+        }
+        final int cells = rows * cols;
+        int groupSize = Math.min(6, cells - 1);
+        while (groupSize > 1 && PatternDatabase.permutations(cells, groupSize + 1) > PatternDatabase.MAX_SEARCH_STATES) {
+            groupSize--;
+        }
+        final ArrayList<int[]> groups = new ArrayList<>();
+        final int[] group = new int[groupSize];
+        int size = 0;
+        for (int j = 0; j < cols; j++) {
+            for (int i = 0; i < rows; i++) {
+                final int tile = i * cols + j + 1;
+                if (tile == cells) {
+                    continue;
+                }
+                group[size++] = tile;
+                if (size == groupSize) {
+                    groups.add(group.clone());
+                    size = 0;
+                }
+            }
+        }
+        if (size > 0) {
+            groups.add(Arrays.copyOf(group, size));
+        }
+        return groups.toArray(new int[0][]);
+    }
+
+    /**
+     * estimate
+     *
+     * @param gs - state to evaluate
+     * @return sum of the pattern table entries, a lower bound on the moves needed to reach the goal
+     */
+    @Override
+    public int estimate(final GameState gs) {
+        final int[] position = this.positions.get();
+        for (int index = 0; index < this.cells; index++) {
+            position[gs.tileAt(index)] = index;
+        }
+        int distance = 0;
+        for (int p = 0; p < this.patterns.length; p++) {
+            final int[] pattern = this.patterns[p];
+            int rank = 0;
+            for (int i = 0; i < pattern.length; i++) {
+                final int pos = position[pattern[i]];
+                int smaller = 0;
+                for (int j = 0; j < i; j++) {
+                    if (position[pattern[j]] < pos) {
+                        smaller++;
+                    }
+                }
+                rank = rank * (this.cells - i) + pos - smaller;
+            }
+            distance += this.tables[p].get(rank) & 0xFF;
+        }
+        return distance;
+    }
+
+    /**
+     * build
+     * Backward breadth-first search from the goal over the placements of the pattern tiles and the blank.
+     * Moving a pattern tile costs one move, moving any other tile is free, so each level is closed over
+     * free moves before the next one is started. The table keeps the cheapest entry over all blank positions.
+     *
+     * @param goal    - goal board
+     * @param pattern - tiles of the pattern
+     * @return table of distances indexed by the rank of the pattern tile positions
+     */
+    static byte[] build(final int[][] goal, final int[] pattern) {
+        final int rows = goal.length;
+        final int cols = goal[0].length;
+        final int cells = rows * cols;
+        final int k = pattern.length;
+        final long states = PatternDatabase.permutations(cells, k + 1);
+        if (states > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Pattern of " + k + " tiles is too large for a " + rows + "x" + cols + " board");
+        }
+        final byte[] distance = new byte[(int) states];
+        Arrays.fill(distance, (byte) -1);
+
+        final int[] place = new int[k + 1];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                for (int t = 0; t < k; t++) {
+                    if (goal[i][j] == pattern[t]) {
+                        place[t] = i * cols + j;
+                    }
+                }
+                if (goal[i][j] == 0) {
+                    place[k] = i * cols + j;
+                }
+            }
+        }
+
+        int[] current = new int[1024];
+        int[] next = new int[1024];
+        int currentSize = 0;
+        int nextSize = 0;
+        final int start = PatternDatabase.rank(place, k + 1, cells);
+        distance[start] = 0;
+        current[currentSize++] = start;
+        final int[] occupant = new int[cells];
+        for (int level = 0; currentSize > 0; level++) {
+            while (currentSize > 0) {
+                final int index = current[--currentSize];
+                if (distance[index] != level) {
+                    continue;
+                }
+                PatternDatabase.unrank(index, place, k + 1, cells);
+                Arrays.fill(occupant, -1);
+                for (int t = 0; t < k; t++) {
+                    occupant[place[t]] = t;
+                }
+                final int blank = place[k];
+                for (int move = 0; move < 4; move++) {
+                    final int to = PatternDatabase.neighbour(blank, move, rows, cols);
+                    if (to < 0) {
+                        continue;
+                    }
+                    final int tile = occupant[to];
+                    if (tile >= 0) {
+                        place[tile] = blank;
+                    }
+                    place[k] = to;
+                    final int successor = PatternDatabase.rank(place, k + 1, cells);
+                    if (tile >= 0) {
+                        place[tile] = to;
+                        if (distance[successor] == -1) {
+                            distance[successor] = (byte) (level + 1);
+                            if (nextSize == next.length) {
+                                next = Arrays.copyOf(next, nextSize << 1);
+                            }
+                            next[nextSize++] = successor;
+                        }
+                    } else if (distance[successor] == -1 || (distance[successor] & 0xFF) > level) {
+                        distance[successor] = (byte) level;
+                        if (currentSize == current.length) {
+                            current = Arrays.copyOf(current, currentSize << 1);
+                        }
+                        current[currentSize++] = successor;
+                    }
+                    place[k] = blank;
+                }
+            }
+            final int[] swap = current;
+            current = next;
+            next = swap;
+            currentSize = nextSize;
+            nextSize = 0;
+        }
+
+        final int blanks = cells - k;
+        final byte[] table = new byte[(int) PatternDatabase.permutations(cells, k)];
+        for (int i = 0; i < table.length; i++) {
+            int min = 0xFF;
+            for (int b = 0; b < blanks; b++) {
+                min = Math.min(min, distance[i * blanks + b] & 0xFF);
+            }
+            table[i] = (byte) min;
+        }
+        return table;
+    }
+
+    /**
+     * neighbour
+     *
+     * @param cell - row-major cell index
+     * @param move - 0 north, 1 west, 2 east, 3 south
+     * @param rows - number of rows on the board
+     * @param cols - number of columns on the board
+     * @return index of the neighbouring cell, -1 if it is off the board
+     */
+    private static int neighbour(final int cell, final int move, final int rows, final int cols) {
+        final int row = cell / cols;
+        final int col = cell % cols;
+        switch (move) {
+            case 0:
+                return row > 0 ? cell - cols : -1;
+            case 1:
+                return col > 0 ? cell - 1 : -1;
+            case 2:
+                return col < cols - 1 ? cell + 1 : -1;
+            default:
+                return row < rows - 1 ? cell + cols : -1;
+        }
+    }
+
+    /**
+     * rank
+     * Maps the positions of n distinct items on the board to a dense index in [0, cells! / (cells - n)!).
+     *
+     * @param place - cell of each item
+     * @param n     - number of items
+     * @param cells - number of cells on the board
+     * @return index of the placement
+     */
+    private static int rank(final int[] place, final int n, final int cells) {
+        int rank = 0;
+        for (int i = 0; i < n; i++) {
+            int smaller = 0;
+            for (int j = 0; j < i; j++) {
+                if (place[j] < place[i]) {
+                    smaller++;
+                }
+            }
+            rank = rank * (cells - i) + place[i] - smaller;
+        }
+        return rank;
+    }
+
+    /**
+     * unrank
+     * Inverse of rank.
+     *
+     * @param rank  - index of the placement
+     * @param place - receives the cell of each item
+     * @param n     - number of items
+     * @param cells - number of cells on the board
+     */
+    private static void unrank(int rank, final int[] place, final int n, final int cells) {
+        for (int i = n - 1; i >= 0; i--) {
+            place[i] = rank % (cells - i);
+            rank /= cells - i;
+        }
+        for (int i = 0; i < n; i++) {
+            int cell = place[i];
+            boolean moved = true;
+            while (moved) {
+                moved = false;
+                int smaller = 0;
+                for (int j = 0; j < i; j++) {
+                    if (place[j] <= cell) {
+                        smaller++;
+                    }
+                }
+                if (place[i] + smaller != cell) {
+                    cell = place[i] + smaller;
+                    moved = true;
+                }
+            }
+            place[i] = cell;
+        }
+    }
+
+    /**
+     * permutations
+     *
+     * @param cells - number of cells on the board
+     * @param n     - number of items placed
+     * @return cells! / (cells - n)!
+     */
+    private static long permutations(final int cells, final int n) {
+        long count = 1;
+        for (int i = 0; i < n; i++) {
+            count *= cells - i;
+        }
+        return count;
+    }
+
+    private static String fileName(final int rows, final int cols, final int[] pattern) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(rows).append('x').append(cols);
+        for (final int tile : pattern) {
+            sb.append('-').append(tile);
+        }
+        return sb.append(".pdb").toString();
+    }
+
+    private static int headerSize(final int[] pattern) {
+        return 16 + 4 * pattern.length;
+    }
+
+    private static void save(final File file, final int rows, final int cols, final int[] pattern, final byte[] table) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile raf = new RandomAccessFile(temp, "rw"); FileChannel channel = raf.getChannel()) {
+            channel.truncate(0);
+            final ByteBuffer header = ByteBuffer.allocate(PatternDatabase.headerSize(pattern)).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(PatternDatabase.MAGIC).putInt(rows).putInt(cols).putInt(pattern.length);
+            for (final int tile : pattern) {
+                header.putInt(tile);
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            final ByteBuffer body = ByteBuffer.wrap(table);
+            while (body.hasRemaining()) {
+                channel.write(body);
+            }
+            channel.force(true);
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not move " + temp + " to " + file);
+        }
+    }
+
+    private static ByteBuffer map(final File file, final int rows, final int cols, final int[] pattern) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            final int headerSize = PatternDatabase.headerSize(pattern);
+            final long tableSize = PatternDatabase.permutations(rows * cols, pattern.length);
+            final ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            boolean valid = channel.size() == headerSize + tableSize && header.getInt() == PatternDatabase.MAGIC
+                    && header.getInt() == rows && header.getInt() == cols && header.getInt() == pattern.length;
+            for (int i = 0; valid && i < pattern.length; i++) {
+                valid = header.getInt() == pattern[i];
+            }
+            if (!valid) {
+                throw new IOException(file + " is not a pattern table for this board and pattern");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, headerSize, tableSize);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package src;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The class PuzzleContext holds everything about a puzzle that does not change from one state to the next:
+ * its dimensions, the encoding of its boards, its goal layout with the goal cell of every tile, and which cells
+ * neighbour each other. It is immutable, so every GameState of a problem shares its context and reads it without
+ * locking; successors get it from their parent.
+ * There is one context per board shape, built the first time the shape is seen, so puzzles of different shapes
+ * can be solved in the same JVM, at the same time.
+ */
+public final class PuzzleContext {
+    private static final ConcurrentHashMap<Long, PuzzleContext> SHAPES = new ConcurrentHashMap<>();
+
+    final int rows;
+    final int cols;
+    final int cells;
+    final int bits;
+    final int perWord;
+    final long[] goalPacked;
+    final int[][] neighbours;
+    private final int[] goalTile;
+    private final int[] goalCell;
+
+    private PuzzleContext(final int rows, final int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.bits = GameState.bitsPerTile(this.cells);
+        this.perWord = 64 / this.bits;
+        this.goalTile = new int[this.cells];
+        this.goalCell = new int[this.cells];
+        for (int cell = 0; cell < this.cells; cell++) {
+            this.goalTile[cell] = (cell + 1) % this.cells;
+            this.goalCell[this.goalTile[cell]] = cell;
+        }
+        this.goalPacked = GameState.pack(this.getGoalBoard());
+        this.neighbours = GameState.neighbourTable(rows, cols);
+    }
+
+    /**
+     * of
+     *
+     * @param rows - number of rows on the board
+     * @param cols - number of columns on the board
+     * @return the context of boards of that shape, the goal having tiles 1 to rows * cols - 1 in row-major order
+     * and the blank in the last cell
+     * @throws IllegalArgumentException if the board has fewer than two cells
+     */
+    public static PuzzleContext of(final int rows, final int cols) {
+        if (rows < 1 || cols < 1 || rows * cols < 2) {
+            throw new IllegalArgumentException("A puzzle needs at least two cells, got " + rows + "x" + cols);
+        }
+        return PuzzleContext.SHAPES.computeIfAbsent(((long) rows << 32) | cols, key -> new PuzzleContext(rows, cols));
+    }
+
+    public int getRows() {
+        return this.rows;
+    }
+
+    public int getCols() {
+        return this.cols;
+    }
+
+    public int getCells() {
+        return this.cells;
+    }
+
+    /**
+     * getGoalBoard
+     *
+     * @return a fresh copy of the goal board
+     */
+    public int[][] getGoalBoard() {
+        final int[][] goal = new int[this.rows][this.cols];
+        for (int cell = 0; cell < this.cells; cell++) {
+            goal[cell / this.cols][cell % this.cols] = this.goalTile[cell];
+        }
+        return goal;
+    }
+
+    /**
+     * goalTile
+     *
+     * @param cell - row-major cell index
+     * @return tile held by the cell in the goal
+     */
+    public int goalTile(final int cell) {
+        return this.goalTile[cell];
+    }
+
+    /**
+     * goalCell
+     *
+     * @param tile - tile number, 0 for the blank
+     * @return row-major index of the cell holding the tile in the goal
+     */
+    public int goalCell(final int tile) {
+        return this.goalCell[tile];
+    }
+
+    /**
+     * neighbours
+     *
+     * @param cell - row-major cell index
+     * @return indexes of the cells adjacent to cell, ordered north, west, east, south; not to be modified
+     */
+    int[] neighbours(final int cell) {
+        return this.neighbours[cell];
+    }
+}
@@ -0,0 +1,170 @@
+package src;
+
+/**
+ * The class RunRecord is the machine-readable summary of one solver run, written as one line of JSON
+ * so that files of millions of runs can be streamed record by record.
+ */
+public class RunRecord {
+    final String algorithm;
+    final long instance;
+    final int rows;
+    final int cols;
+    final SearchOutcome outcome;
+    final int moves;
+    final long expanded;
+    final long unexpanded;
+    final long timeNanos;
+    final long memoryBytes;
+
+    /**
+     * RunRecord
+     *
+     * @param algorithm   - key of the algorithm that was run
+     * @param instance    - number of the instance in its batch
+     * @param rows        - number of rows on the board
+     * @param cols        - number of columns on the board
+     * @param outcome     - how the search ended
+     * @param moves       - length of the solution, -1 if none was found
+     * @param expanded    - number of nodes expanded
+     * @param unexpanded  - number of nodes left unexpanded
+     * @param timeNanos   - wall-clock time of the run
+     * @param memoryBytes - peak heap use seen during the run, 0 if not measured
+     */
+    public RunRecord(final String algorithm, final long instance, final int rows, final int cols,
+                     final SearchOutcome outcome, final int moves, final long expanded, final long unexpanded,
+                     final long timeNanos, final long memoryBytes) {
+        this.algorithm = algorithm;
+        this.instance = instance;
+        this.rows = rows;
+        this.cols = cols;
+        this.outcome = outcome;
+        this.moves = moves;
+        this.expanded = expanded;
+        this.unexpanded = unexpanded;
+        this.timeNanos = timeNanos;
+        this.memoryBytes = memoryBytes;
+    }
+
+    /**
+     * of
+     * Summarises a finished run of a Solver.
+     *
+     * @param algorithm - algorithm that was run
+     * @param instance  - number of the instance in its batch
+     * @param board     - initial board
+     * @param solver    - solver after the run
+     * @param timeNanos - wall-clock time of the run
+     * @return record of the run
+     */
+    public static RunRecord of(final Algorithm algorithm, final long instance, final int[][] board, final Solver solver,
+                               final long timeNanos) {
+        return new RunRecord(algorithm.getKey(), instance, board.length, board[0].length, solver.getOutcome(),
+                solver.getMoves(), solver.getNodesExpanded(), solver.getNodesUnexpanded(), timeNanos, solver.getMetrics().getPeakHeapBytes());
+    }
+
+    /**
+     * toJson
+     *
+     * @return the record as a single line of JSON
+     */
+    public String toJson() {
+        return "{\"algorithm\":\"" + this.algorithm + "\",\"instance\":" + this.instance + ",\"rows\":" + this.rows
+                + ",\"cols\":" + this.cols + ",\"outcome\":\"" + this.outcome + "\",\"moves\":" + this.moves + ",\"expanded\":" + this.expanded
+                + ",\"unexpanded\":" + this.unexpanded + ",\"timeNanos\":" + this.timeNanos
+                + ",\"memoryBytes\":" + this.memoryBytes + "}";
+    }
+
+    /**
+     * fromJson
+     * Reads a line written by toJson. Fields may come in any order and unknown fields are skipped,
+     * but values must be plain numbers or strings without escapes. Records written before outcomes were
+     * recorded count as solved if they have a solution.
+     *
+     * @param line - one JSON object
+     * @return the record it holds
+     * @throws IllegalArgumentException if the line is not a flat JSON object
+     */
+    public static RunRecord fromJson(final String line) {
+        String algorithm = "";
+        long instance = 0;
+        int rows = 0;
+        int cols = 0;
+        SearchOutcome outcome = null;
+        int moves = -1;
+        long expanded = 0;
+        long unexpanded = 0;
+        long timeNanos = 0;
+        long memoryBytes = 0;
+        final int end = line.lastIndexOf('}');
+        int i = line.indexOf('{') + 1;
+        if (i == 0 || end < i) {
+            throw new IllegalArgumentException("Not a run record: " + line);
+        }
+        while (i < end) {
+            final int keyStart = line.indexOf('"', i) + 1;
+            if (keyStart == 0 || keyStart > end) {
+                break;
+            }
+            final int keyEnd = line.indexOf('"', keyStart);
+            final int colon = line.indexOf(':', keyEnd);
+            int valueStart = colon + 1;
+            while (line.charAt(valueStart) == ' ') {
+                valueStart++;
+            }
+            final int valueEnd;
+            final String value;
+            if (line.charAt(valueStart) == '"') {
+                valueEnd = line.indexOf('"', valueStart + 1) + 1;
+                value = line.substring(valueStart + 1, valueEnd - 1);
+            } else {
+                int comma = line.indexOf(',', valueStart);
+                valueEnd = comma < 0 || comma > end ? end : comma;
+                value = line.substring(valueStart, valueEnd).trim();
+            }
+            switch (line.substring(keyStart, keyEnd)) {
+                case "algorithm":
+                    algorithm = value;
+                    break;
+                case "instance":
+                    instance = Long.parseLong(value);
+                    break;
+                case "rows":
+                    rows = Integer.parseInt(value);
+                    break;
+                case "cols":
+                    cols = Integer.parseInt(value);
+                    break;
+                case "outcome":
+                    outcome = SearchOutcome.valueOf(value);
+                    break;
+                case "moves":
+                    moves = Integer.parseInt(value);
+                    break;
+                case "expanded":
+                    expanded = Long.parseLong(value);
+                    break;
+                case "unexpanded":
+                    unexpanded = Long.parseLong(value);
+                    break;
+                case "timeNanos":
+                    timeNanos = Long.parseLong(value);
+                    break;
+                case "memoryBytes":
+                    memoryBytes = Long.parseLong(value);
+                    break;
+                default:
+                    break;
+            }
+            i = valueEnd + 1;
+        }
+        if (outcome == null) {
+            outcome = moves >= 0 ? SearchOutcome.SOLVED : SearchOutcome.NO_SOLUTION;
+        }
+        return new RunRecord(algorithm, instance, rows, cols, outcome, moves, expanded, unexpanded, timeNanos, memoryBytes);
+    }
+
+    @Override
+    public String toString() {
+        return this.toJson();
+    }
+}
@@ -0,0 +1,90 @@
+package src;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The class SearchEvent is the Java Flight Recorder event committed at the end of every Solver.solve.
+ * While a recording has the event enabled, for instance with
+ * -XX:StartFlightRecording=settings=profile, searches collect their metrics even if the Solver was not asked to.
+ */
+@Name("npuzzle.Search")
+@Label("Puzzle Search")
+@Category("N-Puzzle")
+@Description("One run of a search algorithm with its metrics")
+class SearchEvent extends jdk.jfr.Event {
+    @Label("Algorithm")
+    String algorithm;
+
+    @Label("Outcome")
+    String outcome;
+
+    @Label("Solution Length")
+    int solutionLength;
+
+    @Label("Time To First Solution")
+    @Timespan(Timespan.NANOSECONDS)
+    long timeToFirstSolution;
+
+    @Label("Nodes Generated")
+    long generated;
+
+    @Label("Nodes Expanded")
+    long expanded;
+
+    @Label("Duplicates Pruned")
+    long duplicates;
+
+    @Label("Nodes Per Second")
+    long nodesPerSecond;
+
+    @Label("Peak Frontier")
+    long peakFrontier;
+
+    @Label("Peak Heap")
+    @DataAmount
+    long peakHeap;
+
+    @Label("Successor Generation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long successorTime;
+
+    @Label("Heuristic Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long heuristicTime;
+
+    @Label("Queue Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long queueTime;
+
+    /**
+     * commit
+     * Copies the metrics into the event and commits it if a recording wants it.
+     *
+     * @param metrics - metrics of the finished search
+     */
+    void commit(final SearchMetrics metrics) {
+        this.end();
+        if (!this.shouldCommit()) {
+            return;
+        }
+        this.algorithm = metrics.getAlgorithm();
+        this.outcome = metrics.getOutcome().name();
+        this.solutionLength = metrics.getSolutionLength();
+        this.timeToFirstSolution = metrics.getTimeToFirstSolutionNanos();
+        this.generated = metrics.getGenerated();
+        this.expanded = metrics.getExpanded();
+        this.duplicates = metrics.getDuplicates();
+        this.nodesPerSecond = metrics.getNodesPerSecond();
+        this.peakFrontier = metrics.getPeakFrontier();
+        this.peakHeap = metrics.getPeakHeapBytes();
+        this.successorTime = metrics.getSuccessorNanos();
+        this.heuristicTime = metrics.getHeuristicNanos();
+        this.queueTime = metrics.getQueueNanos();
+        this.commit();
+    }
+}
@@ -0,0 +1,128 @@
+package src;
+
+/**
+ * The class SearchLimits bounds a search by a number of nodes, by time and by a CancellationToken.
+ * Time can be given as a timeout, counted from the first node the search visits, or as a deadline on the
+ * System.nanoTime clock, for callers that have already spent part of their time budget; with both, the earlier applies.
+ * Instances are immutable: each with method returns a copy with one limit changed, starting from NONE.
+ * Searches count every node but only read the clock and the token once every CHECK_INTERVAL nodes.
+ */
+public final class SearchLimits {
+
+    /**
+     * Number of nodes visited between two reads of the clock and the token.
+     */
+    public static final int CHECK_INTERVAL = 1024;
+
+    /**
+     * No limit at all.
+     */
+    public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, 0, false, 0, null);
+
+    private final long nodeBudget;
+    private final long timeoutNanos;
+    private final boolean hasDeadline;
+    private final long deadline;
+    private final CancellationToken token;
+
+    private SearchLimits(final long nodeBudget, final long timeoutNanos, final boolean hasDeadline, final long deadline,
+                         final CancellationToken token) {
+        this.nodeBudget = nodeBudget;
+        this.timeoutNanos = timeoutNanos;
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+        this.token = token;
+    }
+
+    /**
+     * withNodeBudget
+     *
+     * @param nodeBudget - maximum number of nodes visited, Long.MAX_VALUE for no limit
+     * @return these limits with the given node budget
+     */
+    public SearchLimits withNodeBudget(final long nodeBudget) {
+        return new SearchLimits(nodeBudget, this.timeoutNanos, this.hasDeadline, this.deadline, this.token);
+    }
+
+    /**
+     * withTimeout
+     *
+     * @param timeoutMillis - maximum search time in milliseconds, counted from the first node visited, 0 for no limit
+     * @return these limits with the given timeout
+     */
+    public SearchLimits withTimeout(final long timeoutMillis) {
+        return new SearchLimits(this.nodeBudget, timeoutMillis * 1000000L, this.hasDeadline, this.deadline, this.token);
+    }
+
+    /**
+     * withDeadline
+     *
+     * @param deadlineNanos - System.nanoTime value the search has to stop at
+     * @return these limits with the given deadline
+     */
+    public SearchLimits withDeadline(final long deadlineNanos) {
+        return new SearchLimits(this.nodeBudget, this.timeoutNanos, true, deadlineNanos, this.token);
+    }
+
+    /**
+     * withToken
+     *
+     * @param token - token that cancels the search, null for none
+     * @return these limits with the given cancellation token
+     */
+    public SearchLimits withToken(final CancellationToken token) {
+        return new SearchLimits(this.nodeBudget, this.timeoutNanos, this.hasDeadline, this.deadline, token);
+    }
+
+    public long getNodeBudget() {
+        return this.nodeBudget;
+    }
+
+    public CancellationToken getToken() {
+        return this.token;
+    }
+
+    /**
+     * isTimed
+     *
+     * @return true if there is a timeout or a deadline
+     */
+    public boolean isTimed() {
+        return this.timeoutNanos > 0 || this.hasDeadline;
+    }
+
+    /**
+     * deadlineFrom
+     *
+     * @param start - System.nanoTime value at the first node of the search
+     * @return System.nanoTime value the search has to stop at, meaningless unless isTimed
+     */
+    public long deadlineFrom(final long start) {
+        if (this.timeoutNanos <= 0) {
+            return this.deadline;
+        }
+        final long timeout = start + this.timeoutNanos;
+        return this.hasDeadline && this.deadline - timeout < 0 ? this.deadline : timeout;
+    }
+
+    /**
+     * check
+     * Checks every limit, reading the clock if the search is timed.
+     *
+     * @param nodes    - number of nodes visited so far
+     * @param deadline - value returned by deadlineFrom when the search started
+     * @return the limit reached, null if the search may go on
+     */
+    public SearchOutcome check(final long nodes, final long deadline) {
+        if (nodes > this.nodeBudget) {
+            return SearchOutcome.NODE_LIMIT;
+        }
+        if (this.token != null && this.token.isCancelled()) {
+            return SearchOutcome.CANCELLED;
+        }
+        if (this.isTimed() && System.nanoTime() - deadline > 0) {
+            return SearchOutcome.TIMED_OUT;
+        }
+        return null;
+    }
+}
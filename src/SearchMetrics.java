@@ -0,0 +1,297 @@
+package src;
+
+/**
+ * The class SearchMetrics collects counters and timings while a search runs.
+ * A disabled instance ignores every call after a single branch and never reads the clock, so searches can
+ * report to it unconditionally. Timings of successor generation, heuristic evaluation and open and closed set
+ * operations are measured around each call and add up to less than the elapsed time, the rest being the search itself.
+ * The outcome of the search is the one thing a disabled instance keeps, so callers of Solver.solve always get it.
+ */
+public class SearchMetrics {
+    private static final int HEAP_SAMPLE_INTERVAL = 1024;
+
+    private final String algorithm;
+    private final boolean enabled;
+    private SearchOutcome outcome = SearchOutcome.NO_SOLUTION;
+    private long startTime;
+    private long elapsed;
+    private long firstSolution = -1;
+    private int solutionLength = -1;
+    private long generated;
+    private long expanded;
+    private long duplicates;
+    private long peakFrontier;
+    private long peakHeap;
+    private long successorTime;
+    private long heuristicTime;
+    private long queueTime;
+
+    /**
+     * SearchMetrics
+     *
+     * @param algorithm - name of the search being measured
+     * @param enabled   - false for an instance that records nothing
+     */
+    public SearchMetrics(final String algorithm, final boolean enabled) {
+        this.algorithm = algorithm;
+        this.enabled = enabled;
+    }
+
+    /**
+     * isEnabled
+     *
+     * @return true if this instance records anything
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * start
+     * Starts the clock of the search.
+     */
+    void start() {
+        if (this.enabled) {
+            this.startTime = System.nanoTime();
+            this.sampleHeap();
+        }
+    }
+
+    /**
+     * finish
+     * Stops the clock of the search.
+     *
+     * @param outcome - how the search ended
+     */
+    void finish(final SearchOutcome outcome) {
+        this.outcome = outcome;
+        if (this.enabled) {
+            this.elapsed = System.nanoTime() - this.startTime;
+            this.sampleHeap();
+        }
+    }
+
+    /**
+     * startTimer
+     *
+     * @return current time to pass to one of the timed calls, 0 when disabled
+     */
+    long startTimer() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * expanded
+     * Records the expansion of a node, timed from start.
+     *
+     * @param successors - number of successors generated
+     * @param start      - value of startTimer before the successors were generated
+     */
+    void expanded(final int successors, final long start) {
+        if (this.enabled) {
+            this.successorTime += System.nanoTime() - start;
+            this.generated += successors;
+            if (++this.expanded % SearchMetrics.HEAP_SAMPLE_INTERVAL == 0) {
+                this.sampleHeap();
+            }
+        }
+    }
+
+    /**
+     * successor
+     * Adds the time spent making one successor to the successor time, for searches that make their successors
+     * one at a time on a board modified in place instead of all at once.
+     *
+     * @param start - value of startTimer before the successor was made
+     */
+    void successor(final long start) {
+        if (this.enabled) {
+            this.successorTime += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * heuristic
+     * Records one heuristic evaluation, timed from start.
+     *
+     * @param start - value of startTimer before the evaluation
+     */
+    void heuristic(final long start) {
+        if (this.enabled) {
+            this.heuristicTime += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * queue
+     * Records one operation on the open or closed set, timed from start.
+     *
+     * @param start    - value of startTimer before the operation
+     * @param frontier - size of the frontier after the operation
+     */
+    void queue(final long start, final long frontier) {
+        if (this.enabled) {
+            this.queueTime += System.nanoTime() - start;
+            this.peakFrontier = Math.max(this.peakFrontier, frontier);
+        }
+    }
+
+    /**
+     * frontier
+     * Records the frontier size for searches that do not go through the Solver's open set.
+     *
+     * @param frontier - current size of the frontier
+     */
+    void frontier(final long frontier) {
+        if (this.enabled) {
+            this.peakFrontier = Math.max(this.peakFrontier, frontier);
+        }
+    }
+
+    /**
+     * duplicate
+     * Records a generated state that was already in the open or closed set.
+     */
+    void duplicate() {
+        if (this.enabled) {
+            this.duplicates++;
+        }
+    }
+
+    /**
+     * solution
+     * Records a solution, the first one setting the time to first solution.
+     *
+     * @param length - number of moves of the solution
+     */
+    void solution(final int length) {
+        if (this.enabled && this.firstSolution < 0) {
+            this.firstSolution = System.nanoTime() - this.startTime;
+            this.solutionLength = length;
+        }
+    }
+
+    /**
+     * add
+     * Adds the counts of a search that keeps its own, such as the parallel and memory-bounded searches.
+     *
+     * @param expandedCount  - nodes expanded
+     * @param generatedCount - nodes generated
+     */
+    void add(final long expandedCount, final long generatedCount) {
+        if (this.enabled) {
+            this.expanded += expandedCount;
+            this.generated += generatedCount;
+        }
+    }
+
+    private void sampleHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        this.peakHeap = Math.max(this.peakHeap, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    public String getAlgorithm() {
+        return this.algorithm;
+    }
+
+    public SearchOutcome getOutcome() {
+        return this.outcome;
+    }
+
+    public long getElapsedNanos() {
+        return this.elapsed;
+    }
+
+    /**
+     * getTimeToFirstSolutionNanos
+     *
+     * @return time from the start of the search to its first solution, -1 if none was found
+     */
+    public long getTimeToFirstSolutionNanos() {
+        return this.firstSolution;
+    }
+
+    /**
+     * getSolutionLength
+     *
+     * @return number of moves of the first solution, -1 if none was found
+     */
+    public int getSolutionLength() {
+        return this.solutionLength;
+    }
+
+    public long getGenerated() {
+        return this.generated;
+    }
+
+    public long getExpanded() {
+        return this.expanded;
+    }
+
+    public long getDuplicates() {
+        return this.duplicates;
+    }
+
+    /**
+     * getNodesPerSecond
+     *
+     * @return nodes expanded per second of elapsed time
+     */
+    public long getNodesPerSecond() {
+        return this.elapsed == 0 ? 0 : this.expanded * 1000000000L / this.elapsed;
+    }
+
+    public long getPeakFrontier() {
+        return this.peakFrontier;
+    }
+
+    /**
+     * getPeakHeapBytes
+     *
+     * @return highest heap use seen, sampled at the start, at the end and every 1024 expansions
+     */
+    public long getPeakHeapBytes() {
+        return this.peakHeap;
+    }
+
+    public long getSuccessorNanos() {
+        return this.successorTime;
+    }
+
+    public long getHeuristicNanos() {
+        return this.heuristicTime;
+    }
+
+    public long getQueueNanos() {
+        return this.queueTime;
+    }
+
+    /**
+     * toJson
+     *
+     * @return the metrics as a single-line JSON object
+     */
+    public String toJson() {
+        return "{\"algorithm\":\"" + this.algorithm + "\""
+                + ",\"enabled\":" + this.enabled
+                + ",\"outcome\":\"" + this.outcome + "\""
+                + ",\"elapsedNanos\":" + this.elapsed
+                + ",\"timeToFirstSolutionNanos\":" + this.firstSolution
+                + ",\"solutionLength\":" + this.solutionLength
+                + ",\"generated\":" + this.generated
+                + ",\"expanded\":" + this.expanded
+                + ",\"duplicates\":" + this.duplicates
+                + ",\"nodesPerSecond\":" + this.getNodesPerSecond()
+                + ",\"peakFrontier\":" + this.peakFrontier
+                + ",\"peakHeapBytes\":" + this.peakHeap
+                + ",\"successorNanos\":" + this.successorTime
+                + ",\"heuristicNanos\":" + this.heuristicTime
+                + ",\"queueNanos\":" + this.queueTime
+                + "}";
+    }
+
+    @Override
+    public String toString() {
+        return this.toJson();
+    }
+}
@@ -0,0 +1,38 @@
+package src;
+
+/**
+ * The enum SearchOutcome tells how the last search of a Solver ended. A search stopped by one of its
+ * SearchLimits ends with the limit that stopped it, even if it had found a solution it could not yet prove optimal.
+ */
+public enum SearchOutcome {
+    SOLVED("Solution found!"),
+    NO_SOLUTION("No solution found"),
+    UNSOLVABLE("Puzzle is not solvable"),
+    NODE_LIMIT("Search limit reached"),
+    TIMED_OUT("Search timed out"),
+    CANCELLED("Search cancelled");
+
+    private final String message;
+
+    SearchOutcome(final String message) {
+        this.message = message;
+    }
+
+    /**
+     * getMessage
+     *
+     * @return line printed by the searches for this outcome
+     */
+    public String getMessage() {
+        return this.message;
+    }
+
+    /**
+     * isStopped
+     *
+     * @return true if the search was stopped by a limit before it could finish
+     */
+    public boolean isStopped() {
+        return this == NODE_LIMIT || this == TIMED_OUT || this == CANCELLED;
+    }
+}
@@ -0,0 +1,396 @@
+package src;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The class SolutionCache remembers the optimal distance to the goal of states met on optimal solutions,
+ * with the move that starts an optimal path from each, so the rest of the path can be replayed.
+ * States are stored in a canonical form. On a square board, transposing the board and renaming every tile
+ * after the goal cell its own goal cell transposes to maps the goal onto itself, so a state and its image
+ * share one entry; the stored move is transposed back on the way out.
+ * The cache holds at most a fixed number of states and drops the least recently used one first.
+ * One cache can be shared by solvers on several threads. The searches look up every state they generate, almost
+ * always in vain, so a lookup first checks a filter of the stored states without locking or allocating: two bits
+ * per board in a bit array, picked by the hash the GameState already holds and set for both the board and its
+ * transposed image when a state is stored. Only a state whose bits are both set takes the lock and looks at the
+ * map. Evicted states leave their bits behind, so the filter is rebuilt from the map once as many states as the
+ * cache holds have been stored since it was last built.
+ */
+public class SolutionCache {
+    private static final int MAGIC = 0x534f4c31;
+
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int bits;
+    private final int perWord;
+    private final int words;
+    private final boolean square;
+    private final int[] relabel;
+    private final int capacity;
+    private final LinkedHashMap<Key, Integer> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile AtomicLongArray filter;
+    private int storedSinceFilter;
+
+    /**
+     * SolutionCache
+     *
+     * @param rows     - number of rows on the boards cached
+     * @param cols     - number of columns on the boards cached
+     * @param capacity - largest number of states kept
+     * @throws IllegalArgumentException if the board has more cells than a move can be stored for
+     */
+    public SolutionCache(final int rows, final int cols, final int capacity) {
+        if (rows * cols > 255) {
+            throw new IllegalArgumentException("Solution cache stores moves in a byte, at most 255 cells");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = rows * cols;
+        this.bits = GameState.bitsPerTile(this.cells);
+        this.perWord = 64 / this.bits;
+        this.words = (this.cells + this.perWord - 1) / this.perWord;
+        this.square = rows == cols;
+        this.relabel = new int[this.cells];
+        for (int tile = 1; tile < this.cells; tile++) {
+            final int cell = tile - 1;
+            this.relabel[tile] = (cell % cols) * cols + cell / cols + 1;
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<Key, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Integer> eldest) {
+                return this.size() > capacity;
+            }
+        };
+        this.filter = new AtomicLongArray(SolutionCache.filterWords(capacity));
+    }
+
+    /**
+     * filterWords
+     *
+     * @param capacity - largest number of states kept
+     * @return number of longs in a filter with at least 16 bits per state, a power of two
+     */
+    private static int filterWords(final int capacity) {
+        int words = 1;
+        while ((long) words * 64 < (long) capacity * 16 && words < 1 << 24) {
+            words <<= 1;
+        }
+        return words;
+    }
+
+    /**
+     * fits
+     *
+     * @param gs - any state
+     * @return true if the state has the board shape of this cache
+     */
+    public boolean fits(final GameState gs) {
+        return gs.getRows() == this.rows && gs.getCols() == this.cols;
+    }
+
+    /**
+     * continuation
+     * Replays the cached optimal path from a state, counting a hit or a miss. A state the filter rules out
+     * is a miss found without locking.
+     *
+     * @param gs - state to look up, left unchanged
+     * @return blank positions along an optimal path to the goal, empty for the goal itself,
+     * null if the state is not cached or part of its path has been evicted
+     */
+    public int[] continuation(final GameState gs) {
+        if (!this.mayHold(gs.hashCode())) {
+            this.misses.increment();
+            return null;
+        }
+        synchronized (this) {
+            return this.replay(gs);
+        }
+    }
+
+    /**
+     * replay
+     * Follows the cached moves from a state, under the lock.
+     *
+     * @param gs - state to look up, left unchanged
+     * @return the continuation of the state, null if it is not cached or part of its path has been evicted
+     */
+    private int[] replay(final GameState gs) {
+        GameState state = gs;
+        int[] path = null;
+        for (int step = 0; ; step++) {
+            final Key key = this.key(state);
+            final Integer value = this.entries.get(key);
+            if (value == null) {
+                if (step == 0) {
+                    this.misses.increment();
+                }
+                return null;
+            }
+            final int distance = value >>> 8;
+            if (step == 0) {
+                this.hits.increment();
+                path = new int[distance];
+            }
+            if (distance != path.length - step) {
+                return null;
+            }
+            if (distance == 0) {
+                return path;
+            }
+            final int cell = (value & 0xFF) - 1;
+            path[step] = key.transposed ? this.transpose(cell) : cell;
+            if (step == 0) {
+                state = state.clone();
+            }
+            state.moveBlank(path[step]);
+        }
+    }
+
+    /**
+     * storePath
+     * Caches every state on an optimal solution.
+     *
+     * @param goal - goal node of an optimal solution, its parents leading back to the initial state
+     */
+    public synchronized void storePath(final Node goal) {
+        int next = -1;
+        for (Node n = goal; n != null; n = n.parent) {
+            final Key key = this.key(n.state);
+            final int cell = next < 0 ? -1 : key.transposed ? this.transpose(next) : next;
+            this.store(key, ((goal.getCost() - n.getCost()) << 8) | (cell + 1));
+            next = n.state.getBlank();
+        }
+    }
+
+    /**
+     * store
+     * Puts an entry in the map and its bits in the filter, rebuilding the filter first if evictions have left
+     * too many stale bits in it. Called under the lock.
+     *
+     * @param key   - canonical key of a state
+     * @param value - distance to the goal in the high bits, first move plus one in the low byte
+     */
+    private void store(final Key key, final int value) {
+        if (this.entries.put(key, value) != null) {
+            return;
+        }
+        if (++this.storedSinceFilter > this.capacity) {
+            final AtomicLongArray rebuilt = new AtomicLongArray(this.filter.length());
+            for (final Key stored : this.entries.keySet()) {
+                this.mark(rebuilt, stored);
+            }
+            this.filter = rebuilt;
+            this.storedSinceFilter = 0;
+        } else {
+            this.mark(this.filter, key);
+        }
+    }
+
+    /**
+     * mark
+     * Sets the filter bits of the board a key stands for and of its transposed image, the two states a lookup
+     * may find the key from. Called under the lock.
+     *
+     * @param bits - filter
+     * @param key  - canonical key of a state
+     */
+    private void mark(final AtomicLongArray bits, final Key key) {
+        final int[][] board = new int[this.rows][this.cols];
+        final int[][] image = new int[this.rows][this.cols];
+        for (int cell = 0; cell < this.cells; cell++) {
+            final int tile = (int) (key.words[cell / this.perWord] >>> ((cell % this.perWord) * this.bits)) & ((1 << this.bits) - 1);
+            board[cell / this.cols][cell % this.cols] = tile;
+            if (this.square) {
+                final int target = this.transpose(cell);
+                image[target / this.cols][target % this.cols] = this.relabel[tile];
+            }
+        }
+        final PuzzleContext context = PuzzleContext.of(this.rows, this.cols);
+        SolutionCache.mark(bits, new GameState(context, board).hashCode());
+        if (this.square) {
+            SolutionCache.mark(bits, new GameState(context, image).hashCode());
+        }
+    }
+
+    private static void mark(final AtomicLongArray bits, final int hash) {
+        final int mask = bits.length() * 64 - 1;
+        final int first = hash & mask;
+        final int second = SolutionCache.remix(hash) & mask;
+        bits.set(first >>> 6, bits.get(first >>> 6) | 1L << first);
+        bits.set(second >>> 6, bits.get(second >>> 6) | 1L << second);
+    }
+
+    /**
+     * mayHold
+     *
+     * @param hash - hash of a state
+     * @return false if the state is certainly not cached
+     */
+    private boolean mayHold(final int hash) {
+        final AtomicLongArray bits = this.filter;
+        final int mask = bits.length() * 64 - 1;
+        final int first = hash & mask;
+        final int second = SolutionCache.remix(hash) & mask;
+        return (bits.get(first >>> 6) & 1L << first) != 0 && (bits.get(second >>> 6) & 1L << second) != 0;
+    }
+
+    /**
+     * remix
+     *
+     * @param hash - hash of a state
+     * @return a second hash, independent enough of the first to pick the other filter bit
+     */
+    private static int remix(final int hash) {
+        final int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+
+    /**
+     * key
+     *
+     * @param gs - state of the cached shape
+     * @return canonical key of the state: the smaller of its packed board and that of its transposed image
+     */
+    private Key key(final GameState gs) {
+        final long[] plain = new long[this.words];
+        for (int cell = 0; cell < this.cells; cell++) {
+            plain[cell / this.perWord] |= (long) gs.tileAt(cell) << ((cell % this.perWord) * this.bits);
+        }
+        if (!this.square) {
+            return new Key(plain, false);
+        }
+        final long[] image = new long[this.words];
+        for (int cell = 0; cell < this.cells; cell++) {
+            final int tile = this.relabel[gs.tileAt(this.transpose(cell))];
+            image[cell / this.perWord] |= (long) tile << ((cell % this.perWord) * this.bits);
+        }
+        for (int w = this.words - 1; w >= 0; w--) {
+            if (plain[w] != image[w]) {
+                return Long.compareUnsigned(plain[w], image[w]) < 0 ? new Key(plain, false) : new Key(image, true);
+            }
+        }
+        return new Key(plain, false);
+    }
+
+    private int transpose(final int cell) {
+        return (cell % this.cols) * this.cols + cell / this.cols;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * getHitRate
+     *
+     * @return fraction of lookups that found their state, 0 before any lookup
+     */
+    public double getHitRate() {
+        final long hitCount = this.hits.sum();
+        final long lookups = hitCount + this.misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * save
+     * Writes the cached states, least recently used first, so that load restores the eviction order.
+     *
+     * @param file - where the cache is written
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save(final File file) throws IOException {
+        final File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(SolutionCache.MAGIC);
+            out.writeInt(this.rows);
+            out.writeInt(this.cols);
+            for (final Map.Entry<Key, Integer> entry : this.entries.entrySet()) {
+                for (final long word : entry.getKey().words) {
+                    out.writeLong(word);
+                }
+                out.writeInt(entry.getValue());
+            }
+        }
+        if (!temp.renameTo(file)) {
+            throw new IOException("Could not move " + temp + " to " + file);
+        }
+    }
+
+    /**
+     * load
+     * Adds the states saved in a file, keeping the most recently used ones if they do not all fit.
+     *
+     * @param file - file written by save for the same board shape
+     * @throws IOException if the file cannot be read or holds another board shape
+     */
+    public synchronized void load(final File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SolutionCache.MAGIC || in.readInt() != this.rows || in.readInt() != this.cols) {
+                throw new IOException(file + " is not a solution cache for " + this.rows + "x" + this.cols + " boards");
+            }
+            while (true) {
+                final long[] key = new long[this.words];
+                try {
+                    key[0] = in.readLong();
+                } catch (final EOFException e) {
+                    return;
+                }
+                for (int w = 1; w < this.words; w++) {
+                    key[w] = in.readLong();
+                }
+                this.store(new Key(key, false), in.readInt());
+            }
+        }
+    }
+
+    /**
+     * The class Key is a packed canonical board, remembering whether it is the transposed image of the state looked up.
+     * The flag takes no part in equality.
+     */
+    private static final class Key {
+        final long[] words;
+        final boolean transposed;
+        private final int hash;
+
+        Key(final long[] words, final boolean transposed) {
+            this.words = words;
+            this.transposed = transposed;
+            this.hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            return o instanceof Key && Arrays.equals(this.words, ((Key) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+}
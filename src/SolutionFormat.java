@@ -0,0 +1,46 @@
+package src;
+
+/**
+ * The enum SolutionFormat chooses how Solver.reportSolution writes the path of a solution.
+ */
+public enum SolutionFormat {
+    /**
+     * Every state of the path on its own line, with its cost and heuristic value.
+     */
+    BOARDS("boards"),
+    /**
+     * A single line of moves, one letter per move giving the direction the blank moves in: U, D, L or R.
+     */
+    MOVES("moves");
+
+    private final String key;
+
+    SolutionFormat(final String key) {
+        this.key = key;
+    }
+
+    /**
+     * getKey
+     *
+     * @return short name of the format
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    /**
+     * fromKey
+     *
+     * @param key - short name of a format
+     * @return the format with that name
+     * @throws IllegalArgumentException if no format has that name
+     */
+    public static SolutionFormat fromKey(final String key) {
+        for (final SolutionFormat format : SolutionFormat.values()) {
+            if (format.key.equalsIgnoreCase(key)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown solution format " + key);
+    }
+}
@@ -1,10 +1,16 @@
 package src;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -13,8 +19,31 @@ import java.util.Scanner;
  */
 public class Solver {
     ArrayList<Node> unexpanded = new ArrayList<>();
-    ArrayList<Node> expanded = new ArrayList<>();
+    HashMap<GameState, Node> unexpandedIndex = new HashMap<>();
+    HashMap<GameState, Node> expanded = new HashMap<>();
+    NodeQueue frontier = new NodeQueue();
+    final GameState[] moveBuffer = new GameState[4];
     Node rootNode;
+    private long iterationNodes;
+    private int solutionDepth;
+    private SearchLimits limits = SearchLimits.NONE;
+    private long deadline;
+    private long visited;
+    private SearchOutcome outcome = SearchOutcome.NO_SOLUTION;
+    private SolutionCache cache;
+    private int[] cachedTail;
+    private boolean metricsEnabled;
+    private SolutionFormat solutionFormat = SolutionFormat.BOARDS;
+    private boolean offHeapArena;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int moves = -1;
+    private Node solution;
+    private long reportedExpanded = -1;
+    private long reportedUnexpanded;
+    SearchMetrics metrics = new SearchMetrics("", false);
+    private static final int FOUND = -1;
+    private static final int LIMIT_REACHED = -2;
+    private static final int DEFAULT_DEPTH_LIMIT = 10;
 
     /**
      * Solver
@@ -28,6 +57,304 @@ public class Solver {
         this.rootNode = new Node(initialState);
     }
 
+    /**
+     * setLimits
+     * Bounds the searches run by this Solver. A search that reaches a limit stops and reports it
+     * instead of a solution. The time limit counts from the first node visited.
+     *
+     * @param nodeLimit     - maximum number of nodes visited, Long.MAX_VALUE for no limit
+     * @param timeoutMillis - maximum search time in milliseconds, 0 for no limit
+     */
+    public void setLimits(final long nodeLimit, final long timeoutMillis) {
+        this.setLimits(SearchLimits.NONE.withNodeBudget(nodeLimit).withTimeout(timeoutMillis));
+    }
+
+    /**
+     * setLimits
+     * Bounds the searches run by this Solver. A search that reaches a limit stops, prints which one with
+     * the number of nodes visited so far and leaves it in getOutcome.
+     *
+     * @param limits - node budget, time limits and cancellation token of the searches
+     */
+    public void setLimits(final SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    /**
+     * getOutcome
+     *
+     * @return how the last search ended
+     */
+    public SearchOutcome getOutcome() {
+        return this.outcome;
+    }
+
+    /**
+     * getNodesVisited
+     *
+     * @return number of nodes counted against the node budget so far
+     */
+    public long getNodesVisited() {
+        return this.visited;
+    }
+
+    /**
+     * setMetricsEnabled
+     * Makes solve collect SearchMetrics. Without it, metrics are only collected while a flight recording
+     * has the npuzzle.Search event enabled.
+     *
+     * @param metricsEnabled - true to collect metrics on every search
+     */
+    public void setMetricsEnabled(final boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * setSolutionFormat
+     *
+     * @param solutionFormat - how reportSolution writes the path, every board by default
+     */
+    public void setSolutionFormat(final SolutionFormat solutionFormat) {
+        this.solutionFormat = solutionFormat;
+    }
+
+    /**
+     * setOffHeapArena
+     * Makes breadth first search, uniform cost search and A* keep the boards of their nodes in direct buffers
+     * outside the Java heap, so the heap only holds their primitive columns.
+     *
+     * @param offHeapArena - true to store boards off the heap, false by default
+     */
+    public void setOffHeapArena(final boolean offHeapArena) {
+        this.offHeapArena = offHeapArena;
+    }
+
+    /**
+     * getMetrics
+     *
+     * @return metrics of the last search run through solve
+     */
+    public SearchMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * setThreads
+     *
+     * @param threads - number of workers of the parallel searches run through solve, the number of processors
+     *                by default
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * setCache
+     * Lets A* and IDA* use the cache: a cached state counts as solved, its cached distance being exact,
+     * and the solutions they find are added to it. Their heuristics must then be admissible, or the cache
+     * would record paths that are not optimal.
+     *
+     * @param cache - cache of the board shape solved, shared with other solvers, null for none
+     * @throws IllegalArgumentException if the cache holds another board shape
+     */
+    public void setCache(final SolutionCache cache) {
+        if (cache != null && !cache.fits(this.rootNode.state)) {
+            throw new IllegalArgumentException("Solution cache holds another board shape");
+        }
+        this.cache = cache;
+    }
+
+    /**
+     * appendTail
+     * Extends a path by replaying the moves of a cached continuation.
+     *
+     * @param n              - end of the path, its state being the start of the continuation
+     * @param tail           - blank positions along the continuation
+     * @param heuristicModel - heuristic used to fill in the new nodes
+     * @return goal node of the extended path
+     */
+    private static Node appendTail(Node n, final int[] tail, final Heuristic heuristicModel) {
+        for (final int to : tail) {
+            final GameState gs = n.state.clone();
+            gs.moveBlank(to);
+            n = new Node(gs, n, n.getCost() + 1, heuristicModel.estimate(gs));
+        }
+        return n;
+    }
+
+    /**
+     * getMoves
+     *
+     * @return length of the last solution reported, -1 if none was found
+     */
+    public int getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * getSolution
+     *
+     * @return goal node of the last solution reported, null if none was found
+     */
+    Node getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * getNodesExpanded
+     *
+     * @return number of nodes expanded given in the last report, or the size of the expanded set if there was none
+     */
+    public long getNodesExpanded() {
+        return this.reportedExpanded >= 0 ? this.reportedExpanded : this.expanded.size();
+    }
+
+    /**
+     * getNodesUnexpanded
+     *
+     * @return number of nodes unexpanded given in the last report, or the size of the unexpanded set if there was none
+     */
+    public long getNodesUnexpanded() {
+        return this.reportedExpanded >= 0 ? this.reportedUnexpanded : this.unexpandedIndex.size();
+    }
+
+    /**
+     * limitReached
+     * Counts a visited node and checks it against the node budget, reading the clock and the cancellation token
+     * once every SearchLimits.CHECK_INTERVAL nodes. The limit reached becomes the outcome of the search.
+     *
+     * @return true if the search has to stop
+     */
+    boolean limitReached() {
+        if (this.visited == 0) {
+            this.deadline = this.limits.deadlineFrom(System.nanoTime());
+        }
+        if (++this.visited > this.limits.getNodeBudget()) {
+            this.outcome = SearchOutcome.NODE_LIMIT;
+            return true;
+        }
+        if (this.visited % SearchLimits.CHECK_INTERVAL != 0) {
+            return false;
+        }
+        final SearchOutcome stop = this.limits.check(this.visited, this.deadline);
+        if (stop == null) {
+            return false;
+        }
+        this.outcome = stop;
+        return true;
+    }
+
+    /**
+     * rejectUnsolvable
+     * Checks the parity of the initial state before a search starts, so an unsolvable puzzle is rejected at once
+     * instead of after the search has explored every state it can reach.
+     *
+     * @param output - where output should be directed
+     * @return true if the puzzle cannot be solved and the search must not run
+     */
+    private boolean rejectUnsolvable(final PrintWriter output) {
+        if (this.rootNode.state.isSolvable()) {
+            return false;
+        }
+        this.outcome = SearchOutcome.UNSOLVABLE;
+        output.println(SearchOutcome.UNSOLVABLE.getMessage());
+        return true;
+    }
+
+    /**
+     * reportStop
+     * Reports a search stopped by one of its limits, with what it did before it stopped.
+     *
+     * @param output - where output should be directed
+     */
+    private void reportStop(final PrintWriter output) {
+        output.println(this.outcome.getMessage());
+        output.println("Nodes visited: " + this.visited);
+    }
+
+    /**
+     * solve
+     * Runs the given algorithm with its default settings.
+     *
+     * @param algorithm - search to run
+     * @param output    - where output should be directed
+     * @return metrics of the search, disabled unless requested with setMetricsEnabled or by a flight recording
+     * @throws UncheckedIOException if the pattern database of the board shape cannot be read or written
+     */
+    public SearchMetrics solve(final Algorithm algorithm, final PrintWriter output) {
+        final SearchEvent event = new SearchEvent();
+        this.metrics = new SearchMetrics(algorithm.getKey(), this.metricsEnabled || event.isEnabled());
+        this.visited = 0;
+        this.outcome = SearchOutcome.NO_SOLUTION;
+        event.begin();
+        this.metrics.start();
+        switch (algorithm) {
+            case UNIFORM_COST:
+                this.UniformCostSolve(output);
+                break;
+            case A_STAR:
+                this.AStarSolve(output);
+                break;
+            case BREADTH_FIRST:
+                this.BreathFirstSearch(output);
+                break;
+            case DEPTH_FIRST:
+                this.DepthFirstSearch(output);
+                break;
+            case GREEDY:
+                this.GreedySearch(output);
+                break;
+            case DEPTH_LIMITED:
+                this.DepthLimitedSearch(output);
+                break;
+            case ITERATIVE_DEEPENING:
+                this.IterativeDeepening(output);
+                break;
+            case IDA_STAR:
+                this.IDAStarSolve(output);
+                break;
+            case BIDIRECTIONAL_BREADTH_FIRST:
+                this.BidirectionalBreadthFirstSearch(output);
+                break;
+            case BIDIRECTIONAL_A_STAR:
+                this.BidirectionalAStarSolve(output);
+                break;
+            case MEMORY_BOUNDED_A_STAR:
+                this.SMAStarSolve(output);
+                break;
+            case WEIGHTED_A_STAR:
+                this.WeightedAStarSolve(output);
+                break;
+            case ANYTIME_A_STAR:
+                this.AnytimeAStarSolve(output);
+                break;
+            case MACRO_OPERATOR:
+                this.MacroSolve(output);
+                break;
+            case PARALLEL_A_STAR:
+                try {
+                    this.ParallelAStarSolve(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()), this.threads);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    this.outcome = SearchOutcome.CANCELLED;
+                    this.reportStop(output);
+                }
+                break;
+            case PATTERN_DATABASE_A_STAR:
+                try {
+                    this.AStarSolve(output, PatternDatabase.forBoard(this.rootNode.state.getBoard()));
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+        }
+        this.metrics.finish(this.outcome);
+        event.commit(this.metrics);
+        return this.metrics;
+    }
+
     /**
      * getLowest
      *
@@ -37,15 +364,130 @@ public class Solver {
      * Method can be used for both uniform cost search and a* search
      */
     public Node getLowest() {
-        Node n = this.unexpanded.get(0);
-        for (final Node node : this.unexpanded) {
-            if ((node.getHeuristic() + node.getCost()) < (n.getCost() + n.getHeuristic())) {
-                n = node;
-            }
-        }
+        return this.frontier.peek();
+    }
+
+    /**
+     * addUnexpanded
+     * Adds a node to the unexpanded list and indexes it by state.
+     *
+     * @param n - node to add
+     */
+    void addUnexpanded(final Node n) {
+        final long start = this.metrics.startTimer();
+        this.unexpanded.add(n);
+        this.unexpandedIndex.put(n.state, n);
+        this.metrics.queue(start, this.unexpanded.size());
+    }
+
+    /**
+     * removeUnexpanded
+     * Removes the node at the given position of the unexpanded list and from the state index.
+     *
+     * @param index - position of the node in the unexpanded list
+     * @return the removed node
+     */
+    Node removeUnexpanded(final int index) {
+        final long start = this.metrics.startTimer();
+        final Node n = this.unexpanded.remove(index);
+        this.unexpandedIndex.remove(n.state);
+        this.metrics.queue(start, this.unexpanded.size());
+        return n;
+    }
+
+    /**
+     * addFrontier
+     * Adds a node to the priority frontier and indexes it by state.
+     *
+     * @param n - node to add
+     */
+    void addFrontier(final Node n) {
+        final long start = this.metrics.startTimer();
+        this.frontier.add(n);
+        this.unexpandedIndex.put(n.state, n);
+        this.metrics.queue(start, this.frontier.size());
+    }
+
+    /**
+     * pollFrontier
+     *
+     * @return the node with the lowest f value, removed from the frontier and the state index
+     */
+    Node pollFrontier() {
+        final long start = this.metrics.startTimer();
+        final Node n = this.frontier.poll();
+        this.unexpandedIndex.remove(n.state);
+        this.metrics.queue(start, this.frontier.size());
         return n;
     }
 
+    /**
+     * relaxFrontier
+     * Re-parents a queued node when a cheaper path to its state has been found.
+     *
+     * @param queued - node already in the frontier
+     * @param parent - node offering the cheaper path
+     * @param cost   - cost of the path through parent
+     */
+    void relaxFrontier(final Node queued, final Node parent, final int cost) {
+        this.metrics.duplicate();
+        if (cost < queued.getCost()) {
+            final long start = this.metrics.startTimer();
+            queued.parent = parent;
+            queued.setCost(cost);
+            this.frontier.decreaseKey(queued);
+            this.metrics.queue(start, this.frontier.size());
+        }
+    }
+
+    /**
+     * expand
+     * Generates the successors of a node into moveBuffer.
+     *
+     * @param n - node being expanded
+     * @return number of successors
+     */
+    int expand(final Node n) {
+        final long start = this.metrics.startTimer();
+        final int moveCount = n.state.successors(this.moveBuffer);
+        this.metrics.expanded(moveCount, start);
+        return moveCount;
+    }
+
+    /**
+     * isKnown
+     * Looks a state up in the unexpanded and expanded sets, counting it as a duplicate if found.
+     *
+     * @param gs - generated state
+     * @return true if the state is already in one of the sets
+     */
+    boolean isKnown(final GameState gs) {
+        final long start = this.metrics.startTimer();
+        final boolean known = Node.findNodeWithState(this.unexpandedIndex, gs) != null
+                || Node.findNodeWithState(this.expanded, gs) != null;
+        this.metrics.queue(start, 0);
+        if (known) {
+            this.metrics.duplicate();
+        }
+        return known;
+    }
+
+    /**
+     * estimate
+     * Timed Solver.evaluate.
+     *
+     * @param heuristicModel - estimate of the distance to the goal
+     * @param parent         - expanded node, holding the estimate of its state
+     * @param gs             - successor state of parent
+     * @return estimated distance to goal state from gs
+     */
+    private int estimate(final Heuristic heuristicModel, final Node parent, final GameState gs) {
+        final long start = this.metrics.startTimer();
+        final int heuristic = Solver.evaluate(heuristicModel, parent, gs);
+        this.metrics.heuristic(start);
+        return heuristic;
+    }
+
     /**
      * UniformCostSolve
      * Uniform cost search algorithm implementation to solve the 8 puzzle
@@ -53,155 +495,916 @@ public class Solver {
      * @param output - where output should be directed
      */
     public void UniformCostSolve(final PrintWriter output) {
-        this.unexpanded.add(this.rootNode);
-        while (!this.unexpanded.isEmpty()) {
-            Node n = this.getLowest();
-            this.unexpanded.remove(n);
-            if (n.state.isGoal()) {
-                this.reportSolution(n, output);
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        this.bestFirstSearch(output, gs -> 0, false);
+    }
+
+    /**
+     * AStarSolve
+     * A* algorithm implementation to solve the N puzzle, using the Manhattan distance
+     *
+     * @param output - where output should be directed
+     */
+    public void AStarSolve(final PrintWriter output) {
+        this.AStarSolve(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()));
+    }
+
+    /**
+     * AStarSolve
+     * A* algorithm implementation to solve the N puzzle
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - estimate of the distance to the goal, admissible for the solution to be optimal
+     */
+    public void AStarSolve(final PrintWriter output, final Heuristic heuristicModel) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        this.bestFirstSearch(output, heuristicModel, true);
+    }
+
+    /**
+     * bestFirstSearch
+     * Best-first search on f = cost + heuristic, shared by uniform cost search and A*. Nodes are kept in a
+     * NodeArena and the board being expanded is decoded into one reused GameState, so the search allocates next
+     * to nothing per node; only the solution path is turned into Node objects.
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - estimate of the distance to the goal, admissible for the solution to be optimal
+     * @param cached         - true to use the solution cache, if one is set, and add the solution to it
+     */
+    private void bestFirstSearch(final PrintWriter output, final Heuristic heuristicModel, final boolean cached) {
+        final NodeArena arena = new NodeArena(this.rootNode.state, this.offHeapArena);
+        final ArenaQueue open = new ArenaQueue(arena);
+        final HashMap<Integer, int[]> tails = new HashMap<>();
+        final GameState board = this.rootNode.state.clone();
+        long start = this.metrics.startTimer();
+        open.add(this.addArenaNode(arena, tails, board, -1, 0, heuristicModel.estimate(board), cached));
+        this.metrics.queue(start, open.size());
+        long expandedCount = 0;
+        while (!open.isEmpty()) {
+            start = this.metrics.startTimer();
+            final int node = open.poll();
+            this.metrics.queue(start, open.size());
+            arena.load(node, board);
+            final int[] tail = tails.isEmpty() ? null : tails.get(node);
+            if (tail != null || board.isGoal()) {
+                Node n = this.arenaPath(arena, node);
+                if (tail != null) {
+                    n = Solver.appendTail(n, tail, heuristicModel);
+                }
+                if (cached && this.cache != null) {
+                    this.cache.storePath(n);
+                }
+                this.reportSolution(n, output, expandedCount, open.size());
+                output.println();
                 return;
             }
-            if (n.getCost() > 100) {
+            if (arena.getCost(node) > 100) {
                 output.println("No solution found");
                 return;
             }
-            this.expanded.add(n);
-            ArrayList<GameState> moveList = n.state.possibleMoves();
-            for (GameState gs : moveList) {
-                if ((Node.findNodeWithState(this.unexpanded, gs) == null) && (Node.findNodeWithState(this.expanded, gs) == null)) {
-                    Node newNode = new Node(gs, n, n.getCost() + 1, 0);
-                    this.unexpanded.add(newNode);
+            if (this.limitReached()) {
+                this.reportStop(output);
+                return;
+            }
+            final int cost = arena.getCost(node) + 1;
+            expandedCount++;
+            final int blank = board.getBlank();
+            start = this.metrics.startTimer();
+            final int[] neighbours = board.getNeighbours(blank);
+            this.metrics.expanded(neighbours.length, start);
+            for (final int to : neighbours) {
+                start = this.metrics.startTimer();
+                board.moveBlank(to);
+                final int known = arena.find(board);
+                this.metrics.successor(start);
+                if (known < 0) {
+                    start = this.metrics.startTimer();
+                    final int heuristic = heuristicModel.update(arena.getHeuristic(node), board, board.tileAt(blank), to, blank);
+                    this.metrics.heuristic(start);
+                    final int child = this.addArenaNode(arena, tails, board, node, cost, heuristic, cached);
+                    start = this.metrics.startTimer();
+                    open.add(child);
+                    this.metrics.queue(start, open.size());
+                } else {
+                    this.metrics.duplicate();
+                    if (open.contains(known) && cost < arena.getCost(known)) {
+                        start = this.metrics.startTimer();
+                        arena.setParent(known, node);
+                        arena.setCost(known, cost);
+                        open.decreaseKey(known);
+                        this.metrics.queue(start, open.size());
+                    }
                 }
+                board.moveBlank(blank);
             }
         }
         output.println("No solution found");
     }
 
     /**
-     * AStarSolve
-     * A* algorithm implementation to solve the N puzzle
+     * addArenaNode
+     * Stores a generated state, replacing its estimate by the exact distance when the state is cached. A cached
+     * state is never expanded, the search stops when it is selected, so incremental estimates are never computed
+     * from an exact one.
+     *
+     * @param arena     - arena of the search
+     * @param tails     - cached continuations of the nodes found in the cache so far, by node index
+     * @param gs        - generated state
+     * @param parent    - index of the node gs was generated from, -1 for the root
+     * @param cost      - cost of reaching gs
+     * @param heuristic - estimate of the distance to the goal from gs
+     * @param cached    - true to look gs up in the solution cache, if one is set
+     * @return index of the new node
+     */
+    private int addArenaNode(final NodeArena arena, final HashMap<Integer, int[]> tails, final GameState gs,
+                             final int parent, final int cost, final int heuristic, final boolean cached) {
+        final int[] tail = cached && this.cache != null ? this.cache.continuation(gs) : null;
+        final int node = arena.add(gs, parent, cost, tail == null ? heuristic : tail.length);
+        if (tail != null) {
+            tails.put(node, tail);
+        }
+        return node;
+    }
+
+    /**
+     * arenaPath
+     * Turns the path to an arena node into Node objects, walking the parent indexes back to the root and then
+     * replaying the moves from the root node.
+     *
+     * @param arena - arena of the search
+     * @param goal  - index of the last node of the path
+     * @return node of goal, its parents leading back to the root node
+     */
+    private Node arenaPath(final NodeArena arena, final int goal) {
+        int length = 0;
+        for (int node = goal; node >= 0; node = arena.getParent(node)) {
+            length++;
+        }
+        final int[] path = new int[length];
+        for (int node = goal; node >= 0; node = arena.getParent(node)) {
+            path[--length] = node;
+        }
+        this.rootNode.setHeuristic(arena.getHeuristic(path[0]));
+        Node n = this.rootNode;
+        for (int i = 1; i < path.length; i++) {
+            final GameState gs = n.state.clone();
+            gs.moveBlank(arena.getBlank(path[i]));
+            n = new Node(gs, n, arena.getCost(path[i]), arena.getHeuristic(path[i]));
+        }
+        return n;
+    }
+
+    /**
+     * WeightedAStarSolve
+     * Weighted A* with the Manhattan distance and a weight of 2
      *
      * @param output - where output should be directed
      */
-    public void AStarSolve(final PrintWriter output) {
-        int heuristic;
-        this.unexpanded.add(this.rootNode);
-        while (!this.unexpanded.isEmpty()) {
-            Node n = this.getLowest();
-            this.unexpanded.remove(n);
+    public void WeightedAStarSolve(final PrintWriter output) {
+        this.WeightedAStarSolve(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()), 2.0);
+    }
+
+    /**
+     * WeightedAStarSolve
+     * Weighted A* implementation to solve the N puzzle. The frontier is ordered on cost + epsilon * heuristic,
+     * which trades optimality for fewer expansions: with a consistent heuristic the solution costs at most
+     * epsilon times the optimal cost, even though expanded nodes are never reopened.
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - consistent estimate of the distance to the goal
+     * @param epsilon        - weight of the heuristic, at least 1
+     */
+    public void WeightedAStarSolve(final PrintWriter output, final Heuristic heuristicModel, final double epsilon) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        this.frontier = new NodeQueue(NodeQueue.byWeightedF(epsilon));
+        this.rootNode.setHeuristic(heuristicModel.estimate(this.rootNode.state));
+        this.addFrontier(this.rootNode);
+        while (!this.frontier.isEmpty()) {
+            Node n = this.pollFrontier();
             if (n.state.isGoal()) {
-                this.reportSolution(n, output);
+                this.reportSolution(n, output, this.expanded.size(), this.unexpandedIndex.size());
+                Solver.printBound(output, epsilon);
+                output.println();
                 return;
             }
             if (n.getCost() > 100) {
                 output.println("No solution found");
                 return;
             }
-            this.expanded.add(n);
-            ArrayList<GameState> moveList = n.state.possibleMoves();
-            for (GameState gs : moveList) {
-                if ((Node.findNodeWithState(this.unexpanded, gs) == null) && (Node.findNodeWithState(this.expanded, gs) == null)) {
-                    heuristic = gs.calculateHeuristic();
-                    Node newNode = new Node(gs, n, n.getCost() + 1, heuristic);
-                    this.unexpanded.add(newNode);
+            if (this.limitReached()) {
+                this.reportStop(output);
+                return;
+            }
+            this.expanded.put(n.state, n);
+            int moveCount = this.expand(n);
+            for (int m = 0; m < moveCount; m++) {
+                GameState gs = this.moveBuffer[m];
+                Node queued = Node.findNodeWithState(this.unexpandedIndex, gs);
+                if (queued != null) {
+                    this.relaxFrontier(queued, n, n.getCost() + 1);
+                } else if (Node.findNodeWithState(this.expanded, gs) == null) {
+                    Node newNode = new Node(gs, n, n.getCost() + 1, this.estimate(heuristicModel, n, gs));
+                    this.addFrontier(newNode);
+                } else {
+                    this.metrics.duplicate();
                 }
             }
         }
         output.println("No solution found");
     }
 
+    /**
+     * AnytimeAStarSolve
+     * ARA* with the Manhattan distance, starting from a weight of 3 lowered by 0.5 after each solution
+     *
+     * @param output - where output should be directed
+     */
+    public void AnytimeAStarSolve(final PrintWriter output) {
+        this.AnytimeAStarSolve(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()), 3.0, 0.5);
+    }
 
-    public void BreathFirstSearch(PrintWriter output) {
-        this.unexpanded.add(this.rootNode);
-        while (!this.unexpanded.isEmpty()) {
-            Node n = this.unexpanded.get(0);
-            this.unexpanded.remove(n);
-            if (n.state.isGoal()) {
-                this.reportSolution(n, output);
+    /**
+     * AnytimeAStarSolve
+     * Anytime repairing A* (ARA*, Likhachev et al.). A weighted A* with a large weight finds a first solution
+     * quickly; the weight is then lowered step by step and each search reuses the costs found by the previous ones,
+     * only re-expanding the states whose cost improved. Every better solution is reported as soon as it is found,
+     * followed by the bound on its cost relative to the optimal one, until the bound reaches 1 or a limit set
+     * with setLimits stops the search.
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - consistent estimate of the distance to the goal
+     * @param initialEpsilon - weight of the heuristic in the first search
+     * @param step           - amount the weight is lowered by after each search
+     * @throws IllegalArgumentException if step is not positive, which would repeat the same search forever
+     */
+    public void AnytimeAStarSolve(final PrintWriter output, final Heuristic heuristicModel, final double initialEpsilon,
+                                  final double step) {
+        if (!(step > 0)) {
+            throw new IllegalArgumentException("ARA* needs a positive weight step, got " + step);
+        }
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final HashMap<GameState, Node> nodes = new HashMap<>();
+        final HashSet<GameState> closed = new HashSet<>();
+        final HashMap<GameState, Node> inconsistent = new HashMap<>();
+        double epsilon = Math.max(1, initialEpsilon);
+        NodeQueue open = new NodeQueue(NodeQueue.byWeightedF(epsilon));
+        this.rootNode.setHeuristic(heuristicModel.estimate(this.rootNode.state));
+        nodes.put(this.rootNode.state, this.rootNode);
+        open.add(this.rootNode);
+        Node goal = this.rootNode.state.isGoal() ? this.rootNode : null;
+        int reportedCost = Integer.MAX_VALUE;
+        double reportedBound = Double.MAX_VALUE;
+        long expandedCount = 0;
+        while (true) {
+            boolean stopped = false;
+            while (!open.isEmpty() && (goal == null
+                    || goal.getCost() > open.peek().getCost() + epsilon * open.peek().getHeuristic())) {
+                if (this.limitReached()) {
+                    stopped = true;
+                    break;
+                }
+                final Node n = open.poll();
+                closed.add(n.state);
+                if (n.state.isGoal() || n.getCost() >= 100) {
+                    continue;
+                }
+                expandedCount++;
+                int moveCount = this.expand(n);
+                for (int m = 0; m < moveCount; m++) {
+                    GameState gs = this.moveBuffer[m];
+                    final int cost = n.getCost() + 1;
+                    Node known = nodes.get(gs);
+                    if (known == null) {
+                        known = new Node(gs, n, cost, this.estimate(heuristicModel, n, gs));
+                        nodes.put(gs, known);
+                        open.add(known);
+                    } else if (cost < known.getCost()) {
+                        known.parent = n;
+                        known.setCost(cost);
+                        if (closed.contains(gs)) {
+                            inconsistent.put(gs, known);
+                        } else if (known.queueIndex >= 0) {
+                            open.decreaseKey(known);
+                        } else {
+                            open.add(known);
+                        }
+                    } else {
+                        this.metrics.duplicate();
+                        continue;
+                    }
+                    if (gs.isGoal()) {
+                        goal = known;
+                    }
+                }
+                this.metrics.frontier(open.size() + inconsistent.size());
+            }
+            if (goal == null) {
+                if (stopped) {
+                    this.reportStop(output);
+                } else {
+                    output.println("No solution found");
+                }
                 return;
             }
-            if (n.getCost() > 100) {
-                output.println("No solution found");
+            int lowest = Integer.MAX_VALUE;
+            for (final Node n : open.drain()) {
+                lowest = Math.min(lowest, n.getCost() + n.getHeuristic());
+                inconsistent.put(n.state, n);
+            }
+            for (final Node n : inconsistent.values()) {
+                lowest = Math.min(lowest, n.getCost() + n.getHeuristic());
+            }
+            // epsilon only bounds the solution once a search has run to completion
+            final double ratio = Math.max(1, (double) goal.getCost() / lowest);
+            final double bound = stopped ? ratio : Math.min(epsilon, ratio);
+            if (goal.getCost() < reportedCost) {
+                this.reportSolution(goal, output, expandedCount, inconsistent.size());
+                reportedCost = goal.getCost();
+                Solver.printBound(output, bound);
+                output.println();
+            } else if (bound < reportedBound) {
+                Solver.printBound(output, bound);
+                output.println();
+            }
+            reportedBound = Math.min(reportedBound, bound);
+            if (stopped) {
+                this.reportStop(output);
                 return;
             }
-            this.expanded.add(n);
-            ArrayList<GameState> moveList = n.state.possibleMoves();
-            for (GameState gs : moveList) {
-                if ((Node.findNodeWithState(this.unexpanded, gs) == null) && (Node.findNodeWithState(this.expanded, gs) == null)) {
-                    Node newNode = new Node(gs, n, n.getCost() + 1, 0);
-                    this.unexpanded.add(newNode);
+            if (bound <= 1 || epsilon <= 1) {
+                return;
+            }
+            epsilon = Math.max(1, epsilon - step);
+            open = new NodeQueue(NodeQueue.byWeightedF(epsilon));
+            for (final Node n : inconsistent.values()) {
+                open.add(n);
+            }
+            inconsistent.clear();
+            closed.clear();
+        }
+    }
+
+    /**
+     * printBound
+     *
+     * @param output - where output should be directed
+     * @param bound  - largest possible ratio between the cost of the solution reported and the optimal cost
+     */
+    private static void printBound(final PrintWriter output, final double bound) {
+        output.println(String.format(Locale.ROOT, "Suboptimality bound: %.2f", bound));
+    }
+
+    /**
+     * SMAStarSolve
+     * Memory-bounded A* with the Manhattan distance and a budget of one million nodes
+     *
+     * @param output - where output should be directed
+     */
+    public void SMAStarSolve(final PrintWriter output) {
+        this.SMAStarSolve(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()), 1000000);
+    }
+
+    /**
+     * SMAStarSolve
+     * Memory-bounded A* implementation to solve the N puzzle. At most maxNodes nodes are kept, so the search
+     * cannot run out of memory; it reports how many nodes had to be dropped and generated again.
+     * MemoryBoundedSearch.nodesForBytes turns a heap budget into a node budget.
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - admissible estimate of the distance to the goal
+     * @param maxNodes       - largest number of nodes kept at once
+     */
+    public void SMAStarSolve(final PrintWriter output, final Heuristic heuristicModel, final int maxNodes) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final MemoryBoundedSearch search = new MemoryBoundedSearch(this, heuristicModel, maxNodes);
+        final Node n = search.solve(this.rootNode.state);
+        if (search.isLimitReached()) {
+            this.reportStop(output);
+            return;
+        }
+        if (n == null) {
+            output.println("No solution found");
+            return;
+        }
+        this.metrics.add(search.getExpanded(), search.getStored() + search.getPruned());
+        this.reportSolution(n, output, search.getExpanded(), search.getStored());
+        output.println("Nodes pruned: " + search.getPruned());
+        output.println("Nodes regenerated: " + search.getRegenerated());
+        output.println();
+    }
+
+    /**
+     * MacroSolve
+     * Macro-operator solver finishing the last 3x3 region optimally with A*
+     *
+     * @param output - where output should be directed
+     */
+    public void MacroSolve(final PrintWriter output) {
+        this.MacroSolve(output, true);
+    }
+
+    /**
+     * MacroSolve
+     * Macro-operator implementation to solve boards of any size, far beyond the reach of the searches.
+     * The board is solved row by row and column by column without searching, see MacroSolver, so the solution
+     * is found in polynomial time but is not optimal. Every move counts as a visited node against the limits.
+     *
+     * @param output          - where output should be directed
+     * @param finishOptimally - true to solve the last region of at most 3x3 cells optimally with A*,
+     *                        false to finish by rotating the last 2x2 region
+     */
+    public void MacroSolve(final PrintWriter output, final boolean finishOptimally) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final MacroSolver search = new MacroSolver(this, this.rootNode.state);
+        final int[] path = search.solve(finishOptimally);
+        if (path == null) {
+            this.reportStop(output);
+            return;
+        }
+        Node n = this.rootNode;
+        for (final int to : path) {
+            final GameState gs = n.state.clone();
+            gs.moveBlank(to);
+            n = new Node(gs, n, n.getCost() + 1, 0);
+        }
+        this.metrics.add(search.getExpanded(), 0);
+        this.reportSolution(n, output, search.getExpanded(), 0);
+        output.println();
+    }
+
+    /**
+     * ParallelAStarSolve
+     * Hash-distributed parallel A* implementation to solve the N puzzle
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - estimate of the distance to the goal, admissible for the solution to be optimal
+     * @param threads        - number of worker threads
+     * @throws InterruptedException if interrupted while waiting for the workers
+     */
+    public void ParallelAStarSolve(final PrintWriter output, final Heuristic heuristicModel, final int threads) throws InterruptedException {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final ParallelAStar search = new ParallelAStar(this.rootNode, heuristicModel, threads, this.limits);
+        final Node n = search.solve();
+        final long[] workerExpanded = search.getExpanded();
+        long total = 0;
+        for (final long count : workerExpanded) {
+            total += count;
+        }
+        this.visited += total;
+        this.metrics.add(total, 0);
+        if (search.getStop() != null) {
+            this.outcome = search.getStop();
+        }
+        if (n != null) {
+            this.reportSolution(n, output, total, search.getUnexpanded());
+            for (int i = 0; i < workerExpanded.length; i++) {
+                output.println("Worker " + i + " nodes expanded: " + workerExpanded[i]);
+            }
+            output.println();
+        }
+        if (this.outcome.isStopped()) {
+            this.reportStop(output);
+        } else if (n == null) {
+            output.println("No solution found");
+        }
+    }
+
+    /**
+     * evaluate
+     * Evaluates a successor incrementally from its parent's heuristic value.
+     *
+     * @param heuristicModel - estimate of the distance to the goal
+     * @param parent         - expanded node, holding the estimate of its state
+     * @param gs             - successor state of parent
+     * @return estimated distance to goal state from gs
+     */
+    static int evaluate(final Heuristic heuristicModel, final Node parent, final GameState gs) {
+        final int to = parent.state.getBlank();
+        return heuristicModel.update(parent.getHeuristic(), gs, gs.tileAt(to), gs.getBlank(), to);
+    }
+
+    /**
+     * IDAStarSolve
+     * Iterative deepening A* implementation to solve the N puzzle.
+     * The search runs depth-first over a single board that is modified in place and restored on backtrack,
+     * so memory use is bounded by the solution depth. Only the solution path is turned into nodes.
+     *
+     * @param output - where output should be directed
+     */
+    public void IDAStarSolve(final PrintWriter output) {
+        this.IDAStarSolve(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()));
+    }
+
+    /**
+     * IDAStarSolve
+     * Iterative deepening A* with the given heuristic
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - estimate of the distance to the goal, admissible for the solution to be optimal
+     */
+    public void IDAStarSolve(final PrintWriter output, final Heuristic heuristicModel) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final GameState board = this.rootNode.state.clone();
+        final int[] path = new int[102];
+        final ArrayList<int[]> iterations = new ArrayList<>();
+        long total = 0;
+        final int rootHeuristic = heuristicModel.estimate(board);
+        int threshold = rootHeuristic;
+        path[0] = board.getBlank();
+        this.cachedTail = null;
+        while (threshold <= 100) {
+            this.iterationNodes = 0;
+            final int next = this.idaSearch(board, heuristicModel, 0, rootHeuristic, threshold, -1, path);
+            total += this.iterationNodes;
+            iterations.add(new int[]{threshold, (int) Math.min(this.iterationNodes, Integer.MAX_VALUE)});
+            if (next == Solver.LIMIT_REACHED) {
+                this.reportStop(output);
+                return;
+            }
+            if (next == Solver.FOUND) {
+                GameState gs = this.rootNode.state;
+                Node n = this.rootNode;
+                for (int depth = 1; depth <= this.solutionDepth; depth++) {
+                    gs = gs.clone();
+                    gs.moveBlank(path[depth]);
+                    n = new Node(gs, n, depth, heuristicModel.estimate(gs));
+                }
+                if (this.cachedTail != null) {
+                    n = Solver.appendTail(n, this.cachedTail, heuristicModel);
                 }
+                if (this.cache != null) {
+                    this.cache.storePath(n);
+                }
+                this.reportSolution(n, output, total, 0);
+                for (final int[] iteration : iterations) {
+                    output.println("Iteration threshold: " + iteration[0] + " nodes expanded: " + iteration[1]);
+                }
+                output.println();
+                return;
+            }
+            if (next == Integer.MAX_VALUE) {
+                break;
             }
+            threshold = next;
         }
         output.println("No solution found");
     }
 
-    public void DepthFirstSearch(PrintWriter output) {
-        this.unexpanded.add(this.rootNode);
-        while (!this.unexpanded.isEmpty()) {
-            Node n = this.unexpanded.get(this.unexpanded.size() - 1);
-            this.unexpanded.remove(n);
-            if (n.state.isGoal()) {
-                this.reportSolution(n, output);
+    /**
+     * idaSearch
+     * Bounded depth-first search used by IDAStarSolve. Moves are applied to board in place and undone on return;
+     * the move that would put the blank straight back where it came from is skipped.
+     *
+     * @param board          - board being searched, restored before returning unless the goal was found
+     * @param heuristicModel - estimate of the distance to the goal
+     * @param cost           - number of moves made from the root
+     * @param heuristic      - estimate for board
+     * @param threshold      - largest f value explored in this iteration
+     * @param previousBlank  - blank position before the last move, -1 at the root
+     * @param path           - blank positions along the current path, path[0] being the root
+     * @return FOUND if the goal was found, LIMIT_REACHED if the search has to stop,
+     * otherwise the smallest f value that exceeded the threshold
+     */
+    private int idaSearch(final GameState board, final Heuristic heuristicModel, final int cost, final int heuristic,
+                          final int threshold, final int previousBlank, final int[] path) {
+        final int f = cost + heuristic;
+        if (f > threshold) {
+            return f;
+        }
+        if (this.cache != null) {
+            final int[] tail = this.cache.continuation(board);
+            if (tail != null) {
+                if (cost + tail.length > threshold) {
+                    return cost + tail.length;
+                }
+                this.solutionDepth = cost;
+                this.cachedTail = tail;
+                return Solver.FOUND;
+            }
+        }
+        if (board.isGoal()) {
+            this.solutionDepth = cost;
+            return Solver.FOUND;
+        }
+        if (this.limitReached()) {
+            return Solver.LIMIT_REACHED;
+        }
+        this.iterationNodes++;
+        final int blank = board.getBlank();
+        final long expandStart = this.metrics.startTimer();
+        final int[] neighbours = board.getNeighbours(blank);
+        this.metrics.expanded(previousBlank < 0 ? neighbours.length : neighbours.length - 1, expandStart);
+        int min = Integer.MAX_VALUE;
+        for (final int to : neighbours) {
+            if (to == previousBlank) {
+                continue;
+            }
+            final long successorStart = this.metrics.startTimer();
+            board.moveBlank(to);
+            this.metrics.successor(successorStart);
+            path[cost + 1] = to;
+            final long start = this.metrics.startTimer();
+            final int h = heuristicModel.update(heuristic, board, board.tileAt(blank), to, blank);
+            this.metrics.heuristic(start);
+            final int t = this.idaSearch(board, heuristicModel, cost + 1, h, threshold, blank, path);
+            if (t < 0) {
+                return t;
+            }
+            board.moveBlank(blank);
+            min = Math.min(min, t);
+        }
+        return min;
+    }
+
+    /**
+     * BreathFirstSearch
+     * Breadth first search implementation to solve the N puzzle. Nodes are kept in a NodeArena, which stores them
+     * in the order they are generated, the order breadth first search expands them in, so the arena is the queue.
+     *
+     * @param output - where output should be directed
+     */
+    public void BreathFirstSearch(PrintWriter output) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final NodeArena arena = new NodeArena(this.rootNode.state, this.offHeapArena);
+        final GameState board = this.rootNode.state.clone();
+        arena.add(board, -1, 0, 0);
+        for (int node = 0; node < arena.size(); node++) {
+            arena.load(node, board);
+            if (board.isGoal()) {
+                this.reportSolution(this.arenaPath(arena, node), output, node, arena.size() - node - 1);
+                output.println();
                 return;
             }
-            if (n.getCost() > 100) {
+            if (arena.getCost(node) > 100) {
                 output.println("No solution found");
                 return;
             }
-            this.expanded.add(n);
-            ArrayList<GameState> moveList = n.state.possibleMoves();
-            for (GameState gs : moveList) {
-                if ((Node.findNodeWithState(this.unexpanded, gs) == null) && (Node.findNodeWithState(this.expanded, gs) == null)) {
-                    Node newNode = new Node(gs, n, n.getCost() + 1, 0);
-                    this.unexpanded.add(newNode);
+            if (this.limitReached()) {
+                this.reportStop(output);
+                return;
+            }
+            final int cost = arena.getCost(node) + 1;
+            final int blank = board.getBlank();
+            final long expandStart = this.metrics.startTimer();
+            final int[] neighbours = board.getNeighbours(blank);
+            this.metrics.expanded(neighbours.length, expandStart);
+            for (final int to : neighbours) {
+                final long successorStart = this.metrics.startTimer();
+                board.moveBlank(to);
+                this.metrics.successor(successorStart);
+                final long start = this.metrics.startTimer();
+                if (arena.find(board) >= 0) {
+                    this.metrics.duplicate();
+                } else {
+                    arena.add(board, node, cost, 0);
                 }
+                this.metrics.queue(start, arena.size() - node - 1);
+                board.moveBlank(blank);
             }
         }
         output.println("No solution found");
     }
 
-    public void DepthLimitedSearch(PrintWriter output) {
-        this.unexpanded.add(this.rootNode);
-        int limit = 10;
+    /**
+     * BidirectionalBreadthFirstSearch
+     * Breadth first search run from the initial state and from the goal state at the same time, one full layer
+     * at a time on the side with the smaller layer. Once a layer reaches a state seen from the other side the
+     * cheapest meeting in that layer is optimal, and the two half paths are joined.
+     *
+     * @param output - where output should be directed
+     */
+    public void BidirectionalBreadthFirstSearch(final PrintWriter output) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final Node goalNode = new Node(new GameState(this.rootNode.state.getGoalBoard()));
+        final HashMap<GameState, Node> forwardSeen = new HashMap<>();
+        final HashMap<GameState, Node> backwardSeen = new HashMap<>();
+        ArrayList<Node> forwardLayer = new ArrayList<>();
+        ArrayList<Node> backwardLayer = new ArrayList<>();
+        forwardSeen.put(this.rootNode.state, this.rootNode);
+        backwardSeen.put(goalNode.state, goalNode);
+        forwardLayer.add(this.rootNode);
+        backwardLayer.add(goalNode);
+        if (this.rootNode.state.isGoal()) {
+            this.reportSolution(this.rootNode, output);
+            return;
+        }
+        long expandedCount = 0;
         int depth = 0;
-        while (!this.unexpanded.isEmpty() && limit >= depth) {
-            depth++;
-            Node n = this.unexpanded.get(this.unexpanded.size() - 1);
-            this.unexpanded.remove(n);
-            if (n.state.isGoal()) {
-                this.reportSolution(n, output);
-                return;
-            }
-            if (n.getCost() > 100) {
+        while (!forwardLayer.isEmpty() && !backwardLayer.isEmpty()) {
+            if (depth++ > 100) {
                 output.println("No solution found");
                 return;
             }
-            this.expanded.add(n);
-            ArrayList<GameState> moveList = n.state.possibleMoves();
-            for (GameState gs : moveList) {
-                if ((Node.findNodeWithState(this.unexpanded, gs) == null) && (Node.findNodeWithState(this.expanded, gs) == null)) {
+            final boolean forward = forwardLayer.size() <= backwardLayer.size();
+            final HashMap<GameState, Node> seen = forward ? forwardSeen : backwardSeen;
+            final HashMap<GameState, Node> otherSeen = forward ? backwardSeen : forwardSeen;
+            final ArrayList<Node> nextLayer = new ArrayList<>();
+            Node meeting = null;
+            Node otherMeeting = null;
+            for (final Node n : forward ? forwardLayer : backwardLayer) {
+                if (this.limitReached()) {
+                    this.reportStop(output);
+                    return;
+                }
+                expandedCount++;
+                int moveCount = this.expand(n);
+                for (int m = 0; m < moveCount; m++) {
+                    GameState gs = this.moveBuffer[m];
+                    if (seen.containsKey(gs)) {
+                        this.metrics.duplicate();
+                        continue;
+                    }
                     Node newNode = new Node(gs, n, n.getCost() + 1, 0);
-                    this.unexpanded.add(newNode);
+                    seen.put(gs, newNode);
+                    nextLayer.add(newNode);
+                    Node other = otherSeen.get(gs);
+                    if (other != null && (meeting == null || newNode.getCost() + other.getCost() < meeting.getCost() + otherMeeting.getCost())) {
+                        meeting = newNode;
+                        otherMeeting = other;
+                    }
                 }
             }
+            this.metrics.frontier(nextLayer.size() + (forward ? backwardLayer.size() : forwardLayer.size()));
+            if (meeting != null) {
+                final Node n = forward ? Solver.splice(meeting, otherMeeting.parent, null) : Solver.splice(otherMeeting, meeting.parent, null);
+                this.reportSolution(n, output, expandedCount, nextLayer.size() + (forward ? backwardLayer.size() : forwardLayer.size()));
+                output.println();
+                return;
+            }
+            if (forward) {
+                forwardLayer = nextLayer;
+            } else {
+                backwardLayer = nextLayer;
+            }
         }
         output.println("No solution found");
     }
 
-    public void IterativeDeepening(PrintWriter output) {
-        this.unexpanded.add(this.rootNode);
-        int limit = 10;
-        int depth = 0;
-        while (!this.unexpanded.isEmpty() && limit >= depth) {
-            ++depth;
-            if (depth == limit) {
-                limit += 5;
-                Collections.reverse(this.unexpanded);
+    /**
+     * BidirectionalAStarSolve
+     * Bidirectional A* with the Manhattan distance to the goal forwards and to the initial state backwards
+     *
+     * @param output - where output should be directed
+     */
+    public void BidirectionalAStarSolve(final PrintWriter output) {
+        this.BidirectionalAStarSolve(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()),
+                new ManhattanHeuristic(this.rootNode.state.getBoard()));
+    }
+
+    /**
+     * BidirectionalAStarSolve
+     * MM bidirectional heuristic search (Holte et al.). Each side orders its frontier by max(f, 2g), which
+     * makes the two searches meet in the middle, and expands from the side with the lower priority.
+     * Every generated state is looked up in the other side's sets to keep the cheapest known path, and the
+     * search stops once no frontier node can lead to a cheaper one.
+     *
+     * @param output           - where output should be directed
+     * @param forwardHeuristic - admissible estimate of the distance to the goal
+     * @param backwardHeuristic - admissible estimate of the distance to the initial state
+     */
+    public void BidirectionalAStarSolve(final PrintWriter output, final Heuristic forwardHeuristic, final Heuristic backwardHeuristic) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final Comparator<Node> byPriority = (a, b) -> {
+            final int pa = Math.max(a.getCost() + a.getHeuristic(), 2 * a.getCost());
+            final int pb = Math.max(b.getCost() + b.getHeuristic(), 2 * b.getCost());
+            return pa != pb ? Integer.compare(pa, pb) : Integer.compare(b.getCost(), a.getCost());
+        };
+        final Node goalNode = new Node(new GameState(this.rootNode.state.getGoalBoard()));
+        this.rootNode.setHeuristic(forwardHeuristic.estimate(this.rootNode.state));
+        goalNode.setHeuristic(backwardHeuristic.estimate(goalNode.state));
+        final NodeQueue[] open = {new NodeQueue(byPriority), new NodeQueue(byPriority)};
+        final ArrayList<HashMap<GameState, Node>> openIndex = new ArrayList<>();
+        final ArrayList<HashMap<GameState, Node>> closed = new ArrayList<>();
+        final Heuristic[] heuristics = {forwardHeuristic, backwardHeuristic};
+        for (int side = 0; side < 2; side++) {
+            openIndex.add(new HashMap<>());
+            closed.add(new HashMap<>());
+        }
+        open[0].add(this.rootNode);
+        openIndex.get(0).put(this.rootNode.state, this.rootNode);
+        open[1].add(goalNode);
+        openIndex.get(1).put(goalNode.state, goalNode);
+        int best = this.rootNode.state.isGoal() ? 0 : Integer.MAX_VALUE;
+        Node[] meeting = {this.rootNode, goalNode};
+        while (!open[0].isEmpty() && !open[1].isEmpty()) {
+            final int forwardPriority = Solver.priority(open[0].peek());
+            final int backwardPriority = Solver.priority(open[1].peek());
+            if (best <= Math.min(forwardPriority, backwardPriority)) {
+                break;
+            }
+            if (this.limitReached()) {
+                this.reportStop(output);
+                return;
+            }
+            final int side = forwardPriority <= backwardPriority ? 0 : 1;
+            final Node n = open[side].poll();
+            openIndex.get(side).remove(n.state);
+            closed.get(side).put(n.state, n);
+            if (n.getCost() > 100) {
                 continue;
             }
-            Node n = this.unexpanded.get(this.unexpanded.size() - 1);
-            this.unexpanded.remove(n);
+            int moveCount = this.expand(n);
+            for (int m = 0; m < moveCount; m++) {
+                GameState gs = this.moveBuffer[m];
+                final int cost = n.getCost() + 1;
+                Node known = openIndex.get(side).get(gs);
+                if (known != null) {
+                    if (cost < known.getCost()) {
+                        known.parent = n;
+                        known.setCost(cost);
+                        open[side].decreaseKey(known);
+                    } else {
+                        this.metrics.duplicate();
+                        continue;
+                    }
+                } else {
+                    known = closed.get(side).get(gs);
+                    if (known != null && known.getCost() <= cost) {
+                        this.metrics.duplicate();
+                        continue;
+                    }
+                    closed.get(side).remove(gs);
+                    known = new Node(gs, n, cost, this.estimate(heuristics[side], n, gs));
+                    open[side].add(known);
+                    openIndex.get(side).put(gs, known);
+                }
+                Node other = openIndex.get(1 - side).get(gs);
+                if (other == null) {
+                    other = closed.get(1 - side).get(gs);
+                }
+                if (other != null && cost + other.getCost() < best) {
+                    best = cost + other.getCost();
+                    meeting = side == 0 ? new Node[]{known, other} : new Node[]{other, known};
+                }
+            }
+            this.metrics.frontier(open[0].size() + open[1].size());
+        }
+        if (best == Integer.MAX_VALUE) {
+            output.println("No solution found");
+            return;
+        }
+        final Node n = Solver.splice(meeting[0], meeting[1].parent, forwardHeuristic);
+        this.reportSolution(n, output, closed.get(0).size() + closed.get(1).size(), open[0].size() + open[1].size());
+        output.println();
+    }
+
+    /**
+     * priority
+     *
+     * @param n - node on a frontier of BidirectionalAStarSolve
+     * @return max(f, 2g), the MM priority of the node
+     */
+    private static int priority(final Node n) {
+        return Math.max(n.getCost() + n.getHeuristic(), 2 * n.getCost());
+    }
+
+    /**
+     * splice
+     * Joins a path found from the initial state to the reversed path found from the goal.
+     *
+     * @param forward        - end of the path from the initial state
+     * @param backward       - node after forward on the path from the goal, its parents leading to the goal
+     * @param heuristicModel - heuristic used to fill in the joined nodes, null for 0
+     * @return goal node of the joined path
+     */
+    static Node splice(Node forward, Node backward, final Heuristic heuristicModel) {
+        while (backward != null) {
+            forward = new Node(backward.state, forward, forward.getCost() + 1,
+                    heuristicModel == null ? 0 : heuristicModel.estimate(backward.state));
+            backward = backward.parent;
+        }
+        return forward;
+    }
+
+    public void DepthFirstSearch(PrintWriter output) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        this.addUnexpanded(this.rootNode);
+        while (!this.unexpanded.isEmpty()) {
+            Node n = this.removeUnexpanded(this.unexpanded.size() - 1);
             if (n.state.isGoal()) {
                 this.reportSolution(n, output);
                 return;
@@ -210,40 +1413,166 @@ public class Solver {
                 output.println("No solution found");
                 return;
             }
-            this.expanded.add(n);
-            ArrayList<GameState> moveList = n.state.possibleMoves();
-            for (GameState gs : moveList) {
-                if ((Node.findNodeWithState(this.unexpanded, gs) == null) && (Node.findNodeWithState(this.expanded, gs) == null)) {
+            if (this.limitReached()) {
+                this.reportStop(output);
+                return;
+            }
+            this.expanded.put(n.state, n);
+            int moveCount = this.expand(n);
+            for (int m = 0; m < moveCount; m++) {
+                GameState gs = this.moveBuffer[m];
+                if (!this.isKnown(gs)) {
                     Node newNode = new Node(gs, n, n.getCost() + 1, 0);
-                    this.unexpanded.add(newNode);
+                    this.addUnexpanded(newNode);
                 }
             }
         }
         output.println("No solution found");
     }
 
+    /**
+     * DepthLimitedSearch
+     * Depth limited search with the default limit of Solver.DEFAULT_DEPTH_LIMIT moves
+     *
+     * @param output - where output should be directed
+     */
+    public void DepthLimitedSearch(final PrintWriter output) {
+        this.DepthLimitedSearch(output, Solver.DEFAULT_DEPTH_LIMIT);
+    }
+
+    /**
+     * DepthLimitedSearch
+     * Depth-first search that never goes more than limit moves deep. Only the path being explored is kept,
+     * and the subtrees are searched in parallel in the common ForkJoinPool by ParallelDepthFirst.
+     * The solution found is the first any worker reaches, which need not be the shortest.
+     *
+     * @param output - where output should be directed
+     * @param limit  - largest number of moves explored
+     */
+    public void DepthLimitedSearch(final PrintWriter output, final int limit) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final ParallelDepthFirst search = new ParallelDepthFirst(this.rootNode.state, ForkJoinPool.commonPool(), this.limits);
+        final int[] path = search.search(limit);
+        this.reportDepthFirst(output, search, path, false, new ArrayList<>());
+    }
+
+    /**
+     * IterativeDeepening
+     * Iterative deepening up to 100 moves
+     *
+     * @param output - where output should be directed
+     */
+    public void IterativeDeepening(final PrintWriter output) {
+        this.IterativeDeepening(output, 100);
+    }
+
+    /**
+     * IterativeDeepening
+     * Iterative deepening depth-first search implementation to solve the N puzzle. Each iteration restarts
+     * from the root with a deeper limit, so the first solution found is a shortest one. The first limit is the
+     * distance of the blank from its goal cell and the limit goes up by two, solutions of the other parity being
+     * impossible. Iterations are searched in parallel in the common ForkJoinPool by ParallelDepthFirst.
+     *
+     * @param output   - where output should be directed
+     * @param maxDepth - largest number of moves explored
+     */
+    public void IterativeDeepening(final PrintWriter output, final int maxDepth) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
+        final ParallelDepthFirst search = new ParallelDepthFirst(this.rootNode.state, ForkJoinPool.commonPool(), this.limits);
+        final ArrayList<long[]> iterations = new ArrayList<>();
+        int[] path = null;
+        for (int bound = ParallelDepthFirst.blankDistance(this.rootNode.state); bound <= maxDepth; bound += 2) {
+            final long before = search.getExpanded();
+            path = search.search(bound);
+            iterations.add(new long[]{bound, search.getExpanded() - before});
+            if (path != null || search.getStop() != null) {
+                break;
+            }
+        }
+        this.reportDepthFirst(output, search, path, true, iterations);
+    }
+
+    /**
+     * reportDepthFirst
+     * Reports the outcome of a ParallelDepthFirst search.
+     *
+     * @param output     - where output should be directed
+     * @param search     - search that has run
+     * @param path       - blank positions along the solution found, null if there is none
+     * @param shortest   - true if the solution is a shortest one, the only kind the SolutionCache may store
+     * @param iterations - depth limit and nodes expanded of each iteration
+     */
+    private void reportDepthFirst(final PrintWriter output, final ParallelDepthFirst search, final int[] path,
+                                  final boolean shortest, final ArrayList<long[]> iterations) {
+        this.visited += search.getExpanded();
+        this.metrics.add(search.getExpanded(), 0);
+        if (path != null) {
+            GameState gs = this.rootNode.state;
+            Node n = this.rootNode;
+            for (int depth = 1; depth < path.length; depth++) {
+                gs = gs.clone();
+                gs.moveBlank(path[depth]);
+                n = new Node(gs, n, depth, 0);
+            }
+            if (shortest && this.cache != null) {
+                this.cache.storePath(n);
+            }
+            this.reportSolution(n, output, search.getExpanded(), 0);
+            for (final long[] iteration : iterations) {
+                output.println("Depth limit: " + iteration[0] + " nodes expanded: " + iteration[1]);
+            }
+            output.println();
+        } else if (search.getStop() != null) {
+            this.outcome = search.getStop();
+            this.reportStop(output);
+        } else {
+            output.println("No solution found");
+        }
+    }
+
     public void GreedySearch(final PrintWriter output) {
+        this.GreedySearch(output, new ManhattanHeuristic(this.rootNode.state.getGoalBoard()));
+    }
+
+    /**
+     * GreedySearch
+     * Greedy best-first search, expanding the node that looks closest to the goal. Nodes keep their real cost
+     * so the reported move count is the length of the path, but the cost plays no part in the order. The closed set
+     * keeps the search finite, so it is not cut off at any depth: it finds a solution whenever one exists.
+     *
+     * @param output         - where output should be directed
+     * @param heuristicModel - estimate of the distance to the goal
+     */
+    public void GreedySearch(final PrintWriter output, final Heuristic heuristicModel) {
+        if (this.rejectUnsolvable(output)) {
+            return;
+        }
         int heuristic;
-        this.unexpanded.add(this.rootNode);
-        int depth = 0;
-        while (!this.unexpanded.isEmpty()) {
-            Node n = this.getLowest();
-            this.unexpanded.remove(n);
+        this.frontier = new NodeQueue(NodeQueue.BY_HEURISTIC);
+        this.rootNode.setHeuristic(heuristicModel.estimate(this.rootNode.state));
+        this.addFrontier(this.rootNode);
+        while (!this.frontier.isEmpty()) {
+            Node n = this.pollFrontier();
             if (n.state.isGoal()) {
                 this.reportSolution(n, output);
                 return;
             }
-            if (depth++ > 100) {
-                output.println("No solution found");
+            if (this.limitReached()) {
+                this.reportStop(output);
                 return;
             }
-            this.expanded.add(n);
-            ArrayList<GameState> moveList = n.state.possibleMoves();
-            for (GameState gs : moveList) {
-                if ((Node.findNodeWithState(this.unexpanded, gs) == null) && (Node.findNodeWithState(this.expanded, gs) == null)) {
-                    heuristic = gs.calculateHeuristic();
-                    Node newNode = new Node(gs, n, 0, heuristic);
-                    this.unexpanded.add(newNode);
+            this.expanded.put(n.state, n);
+            int moveCount = this.expand(n);
+            for (int m = 0; m < moveCount; m++) {
+                GameState gs = this.moveBuffer[m];
+                if (!this.isKnown(gs)) {
+                    heuristic = this.estimate(heuristicModel, n, gs);
+                    Node newNode = new Node(gs, n, n.getCost() + 1, heuristic);
+                    this.addFrontier(newNode);
                 }
             }
         }
@@ -252,18 +1581,45 @@ public class Solver {
 
 
     /**
-     * printSolution is a recursive method that prints all the states in a solution.
-     * It uses parent attribute to backtrack back to root
+     * printSolution prints all the states in a solution, from the root to the goal.
+     * It follows the parent attribute back to the root into an array, so the length of the path is
+     * not bounded by the stack.
      *
      * @param n      - goal state node.
      * @param output - out stream.
-     */ 
+     */
     public static void printSolution(final Node n, final PrintWriter output) {
-        if (n.parent != null) {
-            printSolution(n.parent, output);
+        int length = 0;
+        for (Node step = n; step != null; step = step.parent) {
+            length++;
+        }
+        final Node[] path = new Node[length];
+        for (Node step = n; step != null; step = step.parent) {
+            path[--length] = step;
+        }
+        for (final Node step : path) {
+            output.print(step.state);
+            output.print(" cost: ");
+            output.print(step.getCost());
+            output.print(" heuristic:");
+            output.println(step.getHeuristic());
         }
-        System.out.println(n.state + " cost: " + n.getCost() + " heuristic:" + n.getHeuristic());
-        output.println(n.state + " cost: " + n.getCost() + " heuristic:" + n.getHeuristic());
+    }
+
+    /**
+     * moveString
+     *
+     * @param n - goal state node.
+     * @return the moves from the root to n, one letter per move giving the direction the blank moves in
+     */
+    public static String moveString(final Node n) {
+        final StringBuilder moves = new StringBuilder(Math.max(0, n.getCost()));
+        final int cols = n.state.getCols();
+        for (Node step = n; step.parent != null; step = step.parent) {
+            final int delta = step.state.getBlank() - step.parent.state.getBlank();
+            moves.append(delta == -cols ? 'U' : delta == cols ? 'D' : delta == -1 ? 'L' : 'R');
+        }
+        return moves.reverse().toString();
     }
 
     /**
@@ -273,12 +1629,37 @@ public class Solver {
      * @param output - out stream.
      */
     public void reportSolution(final Node n, final PrintWriter output) {
+        this.reportSolution(n, output, this.expanded.size(), this.unexpandedIndex.size());
+        output.println();
+    }
+
+    /**
+     * reportSolution prints the solution and the given node counts, for searches that do not
+     * keep their nodes in the expanded and unexpanded sets. The caller ends the report.
+     *
+     * @param n                - goal state node.
+     * @param output           - out stream.
+     * @param expandedCount    - number of nodes expanded.
+     * @param unexpandedCount  - number of nodes left unexpanded.
+     */
+    public void reportSolution(final Node n, final PrintWriter output, final long expandedCount, final long unexpandedCount) {
+        this.metrics.solution(n.getCost());
+        if (!this.outcome.isStopped()) {
+            this.outcome = SearchOutcome.SOLVED;
+        }
+        this.moves = n.getCost();
+        this.solution = n;
+        this.reportedExpanded = expandedCount;
+        this.reportedUnexpanded = unexpandedCount;
         output.println("Solution found!");
-        Solver.printSolution(n, output);
+        if (this.solutionFormat == SolutionFormat.MOVES) {
+            output.println(Solver.moveString(n));
+        } else {
+            Solver.printSolution(n, output);
+        }
         output.println(n.getCost() + " Moves");
-        output.println("Nodes expanded: " + this.expanded.size());
-        output.println("Nodes unexpanded: " + this.unexpanded.size());
-        output.println();
+        output.println("Nodes expanded: " + expandedCount);
+        output.println("Nodes unexpanded: " + unexpandedCount);
     }
 
 
@@ -286,10 +1667,10 @@ public class Solver {
         Solver problem;
         File outFile;
         PrintWriter output;
-        System.out.println("1)Dijkstra's Algorithm \n2)A* Search \n3)Breath First Search \n4)Depth First Search \n5)Greedy Search \n6)Depth Limited Search \n7)Iterative Deepening");
+        System.out.println("1)Dijkstra's Algorithm \n2)A* Search \n3)Breath First Search \n4)Depth First Search \n5)Greedy Search \n6)Depth Limited Search \n7)Iterative Deepening \n8)IDA* Search \n9)A* Search with pattern databases \n10)Parallel A* Search");
         Scanner scan = new Scanner(System.in);
         int choice = scan.nextInt();
-        choice = choice > 8 || choice < 1 ? -1 : choice;
+        choice = choice > 10 || choice < 1 ? -1 : choice;
         int[][] initialConfig = new int[][]{{1, 2, 3, 4, 5}, {0, 6, 7, 8, 9}, {11, 12, 13, 14, 10}};
 
         switch (choice) {
@@ -373,6 +1754,40 @@ public class Solver {
                 duration = (endTime - startTime) / 1000000;
                 System.out.println(duration + " ms");
                 break;
+            case 8: //IDA*
+                startTime = System.nanoTime();
+                problem = new Solver(initialConfig);
+                outFile = new File("outputIDAstar.txt");
+                output = new PrintWriter(outFile);
+                problem.IDAStarSolve(output);
+                output.close();
+                endTime = System.nanoTime();
+                duration = (endTime - startTime) / 1000000;
+                System.out.println(duration + " ms");
+                break;
+            case 9: // Astar with pattern databases
+                startTime = System.nanoTime();
+                problem = new Solver(initialConfig);
+                outFile = new File("outputAstarPDB.txt");
+                output = new PrintWriter(outFile);
+                problem.AStarSolve(output, PatternDatabase.forBoard(initialConfig));
+                output.close();
+                endTime = System.nanoTime();
+                duration = (endTime - startTime) / 1000000;
+                System.out.println(duration + " ms");
+                break;
+            case 10: // parallel Astar
+                startTime = System.nanoTime();
+                problem = new Solver(initialConfig);
+                outFile = new File("outputParallelAstar.txt");
+                output = new PrintWriter(outFile);
+                problem.ParallelAStarSolve(output, new ManhattanHeuristic(problem.rootNode.state.getGoalBoard()),
+                        Runtime.getRuntime().availableProcessors());
+                output.close();
+                endTime = System.nanoTime();
+                duration = (endTime - startTime) / 1000000;
+                System.out.println(duration + " ms");
+                break;
             default:
                 break;
         }
@@ -0,0 +1,371 @@
+package src;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The class SolverService keeps a solver resident behind a local HTTP endpoint, so that classes are loaded, the
+ * searches compiled and the per-shape tables built once instead of once per puzzle.
+ * POST /solve takes one puzzle per line in the format read by InputFormatter and answers with the report of each,
+ * in order, as BatchSolver writes them; the algorithm query parameter picks another search than the default.
+ * The puzzles of every request go to one fixed pool of threads, so concurrent requests are solved side by side.
+ * At most queueCapacity puzzles may be waiting or running at once; a request that does not fit is refused with
+ * 503 and a Retry-After header instead of being queued without bound.
+ * GET /stats answers with the counts of the service and percentiles of the latency of each puzzle, from the moment
+ * it was accepted to the moment its report was ready, as one line of JSON.
+ */
+public class SolverService {
+    private static final int WARM_UP_SOLVES = 200;
+    private static final long WARM_UP_NODE_LIMIT = 100_000;
+
+    private final Algorithm algorithm;
+    private final int threads;
+    private final int queueCapacity;
+    private final long nodeLimit;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore admission;
+    private final ConcurrentHashMap<Algorithm, BatchSolver> solvers = new ConcurrentHashMap<>();
+    private final Histogram latency = new Histogram();
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private SolutionFormat solutionFormat = SolutionFormat.BOARDS;
+    private SolutionCache cache;
+    private HttpServer server;
+    private ExecutorService handlers;
+
+    /**
+     * SolverService
+     *
+     * @param algorithm     - search run unless a request asks for another
+     * @param threads       - number of puzzles solved at the same time
+     * @param queueCapacity - maximum number of puzzles waiting or running
+     * @param nodeLimit     - maximum number of nodes visited per puzzle, Long.MAX_VALUE for no limit
+     * @param timeoutMillis - maximum search time per puzzle in milliseconds, 0 for no limit
+     */
+    public SolverService(final Algorithm algorithm, final int threads, final int queueCapacity, final long nodeLimit,
+                         final long timeoutMillis) {
+        this.algorithm = algorithm;
+        this.threads = threads;
+        this.queueCapacity = queueCapacity;
+        this.nodeLimit = nodeLimit;
+        this.timeoutMillis = timeoutMillis;
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>());
+        this.workers.prestartAllCoreThreads();
+        this.admission = new Semaphore(queueCapacity);
+    }
+
+    /**
+     * setSolutionFormat
+     *
+     * @param solutionFormat - how solutions are written, every board by default; set before the service starts
+     */
+    public void setSolutionFormat(final SolutionFormat solutionFormat) {
+        this.solutionFormat = solutionFormat;
+    }
+
+    /**
+     * setCache
+     *
+     * @param cache - solution cache shared by every puzzle of its board shape, null for none; set before the
+     *              service starts
+     */
+    public void setCache(final SolutionCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * warmUp
+     * Builds the context of a board shape and solves scrambled boards of that shape with the default algorithm,
+     * so the searches are compiled before the first request. Warm-up solves are not counted in the statistics.
+     *
+     * @param rows - number of rows on the board
+     * @param cols - number of columns on the board
+     */
+    public void warmUp(final int rows, final int cols) {
+        final PuzzleContext context = PuzzleContext.of(rows, cols);
+        final BatchSolver warm = new BatchSolver(this.algorithm, 1, SolverService.WARM_UP_NODE_LIMIT, 0);
+        final Random random = new Random(rows * 31L + cols);
+        for (int i = 1; i <= SolverService.WARM_UP_SOLVES; i++) {
+            final GameState gs = new GameState(context, context.getGoalBoard());
+            for (int m = 0; m < 2 * (rows + cols); m++) {
+                final int[] neighbours = gs.getNeighbours(gs.getBlank());
+                gs.moveBlank(neighbours[random.nextInt(neighbours.length)]);
+            }
+            warm.solveInstance(i, SolverService.format(gs), false);
+        }
+    }
+
+    /**
+     * start
+     * Starts answering requests on the given port of the loopback interface.
+     *
+     * @param port - port to listen on, 0 for any free port
+     * @return the port listened on
+     * @throws IOException if the port cannot be bound
+     */
+    public int start(final int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.handlers = Executors.newCachedThreadPool();
+        this.server.setExecutor(this.handlers);
+        this.server.createContext("/solve", this::handleSolve);
+        this.server.createContext("/stats", this::handleStats);
+        this.server.start();
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * stop
+     * Stops accepting requests and cancels the puzzles still running; they report that they were cancelled.
+     */
+    public void stop() {
+        if (this.server != null) {
+            this.server.stop(0);
+            this.handlers.shutdownNow();
+        }
+        for (final BatchSolver solver : this.solvers.values()) {
+            solver.cancel();
+        }
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * solve
+     * Solves every puzzle on the worker threads, unless there is no room left for them all.
+     *
+     * @param key     - key of the algorithm to run, null for the default
+     * @param puzzles - puzzle texts
+     * @return the reports of the puzzles in order, null if the service is full
+     * @throws InterruptedException if interrupted while waiting for a puzzle
+     * @throws IllegalArgumentException if key names no algorithm
+     */
+    public String solve(final String key, final ArrayList<String> puzzles) throws InterruptedException {
+        final BatchSolver solver = this.solverFor(key == null ? this.algorithm : Algorithm.fromKey(key));
+        if (!this.admission.tryAcquire(puzzles.size())) {
+            this.rejected.incrementAndGet();
+            return null;
+        }
+        this.accepted.addAndGet(puzzles.size());
+        final ArrayList<Future<String>> reports = new ArrayList<>(puzzles.size());
+        for (int i = 0; i < puzzles.size(); i++) {
+            final int instance = i + 1;
+            final String puzzle = puzzles.get(i);
+            final long acceptedAt = System.nanoTime();
+            reports.add(this.workers.submit(() -> {
+                try {
+                    return solver.solveInstance(instance, puzzle, false).getReport();
+                } finally {
+                    this.record(System.nanoTime() - acceptedAt);
+                    this.admission.release();
+                }
+            }));
+        }
+        final StringBuilder text = new StringBuilder();
+        for (final Future<String> report : reports) {
+            try {
+                text.append(report.get());
+            } catch (final ExecutionException e) {
+                text.append("Instance failed: ").append(e.getCause()).append(System.lineSeparator()).append(System.lineSeparator());
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * getStats
+     *
+     * @return counts of the service and latency percentiles in microseconds, as one line of JSON
+     */
+    public String getStats() {
+        final long count;
+        final long p50;
+        final long p90;
+        final long p99;
+        final long max;
+        synchronized (this.latency) {
+            count = this.latency.getCount();
+            p50 = this.latency.quantile(0.5);
+            p90 = this.latency.quantile(0.9);
+            p99 = this.latency.quantile(0.99);
+            max = this.latency.getMax();
+        }
+        return "{\"accepted\":" + this.accepted.get() + ",\"rejected\":" + this.rejected.get()
+                + ",\"running\":" + this.workers.getActiveCount() + ",\"queued\":" + this.workers.getQueue().size()
+                + ",\"capacity\":" + this.queueCapacity + ",\"completed\":" + count + ",\"p50Micros\":" + p50
+                + ",\"p90Micros\":" + p90 + ",\"p99Micros\":" + p99 + ",\"maxMicros\":" + max + "}";
+    }
+
+    private void record(final long nanos) {
+        synchronized (this.latency) {
+            this.latency.add(nanos / 1000);
+        }
+    }
+
+    /**
+     * solverFor
+     *
+     * @param algorithm - search to run
+     * @return the BatchSolver running that search with the settings of the service, created on first use
+     */
+    private BatchSolver solverFor(final Algorithm algorithm) {
+        return this.solvers.computeIfAbsent(algorithm, key -> {
+            final BatchSolver solver = new BatchSolver(key, this.threads, this.nodeLimit, this.timeoutMillis);
+            solver.setSolutionFormat(this.solutionFormat);
+            solver.setCache(this.cache);
+            return solver;
+        });
+    }
+
+    private void handleSolve(final HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                SolverService.respond(exchange, 405, "Use POST with one puzzle per line");
+                return;
+            }
+            final ArrayList<String> puzzles = new ArrayList<>();
+            final BufferedReader body = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = body.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    puzzles.add(line);
+                }
+            }
+            if (puzzles.size() > this.queueCapacity) {
+                SolverService.respond(exchange, 413, "At most " + this.queueCapacity + " puzzles per request");
+                return;
+            }
+            final String reports;
+            try {
+                reports = this.solve(SolverService.parameter(exchange.getRequestURI(), "algorithm"), puzzles);
+            } catch (final IllegalArgumentException e) {
+                SolverService.respond(exchange, 400, e.getMessage());
+                return;
+            }
+            if (reports == null) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                SolverService.respond(exchange, 503, "Queue full");
+                return;
+            }
+            SolverService.respond(exchange, 200, reports);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            SolverService.respond(exchange, 503, "Service stopping");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(final HttpExchange exchange) throws IOException {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            SolverService.respond(exchange, 200, this.getStats());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String text) throws IOException {
+        final byte[] bytes = (text.endsWith("\n") ? text : text + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * parameter
+     *
+     * @param uri  - request URI
+     * @param name - name of a query parameter
+     * @return URL-decoded value of the parameter, null if it is not given
+     * @throws IllegalArgumentException if the value is not validly encoded
+     */
+    private static String parameter(final URI uri, final String name) {
+        final String query = uri.getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (final String pair : query.split("&")) {
+            final int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * format
+     *
+     * @param gs - a state
+     * @return the state in the format read by InputFormatter
+     */
+    private static String format(final GameState gs) {
+        final StringBuilder text = new StringBuilder();
+        text.append('(').append(gs.getRows()).append(", ").append(gs.getCols()).append(") [");
+        for (int cell = 0; cell < gs.getRows() * gs.getCols(); cell++) {
+            text.append(cell == 0 ? "" : " ").append(gs.tileAt(cell));
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * main
+     * Usage: SolverService port algorithm [threads] [queueCapacity] [nodeLimit] [timeoutMillis] [warmShapes] [format]
+     * algorithm is one of the Algorithm keys, the default for requests that name none. A node limit or timeout of 0
+     * means no limit. warmShapes lists the board shapes to warm up before listening, such as 3x3,4x4, or "-" for
+     * none. format is "boards" to write every state of a solution, the default, or "moves" for a move string.
+     *
+     * @param args - command line arguments
+     * @throws Exception if the port cannot be bound
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Usage: SolverService port algorithm [threads] [queueCapacity] [nodeLimit] [timeoutMillis] [warmShapes] [format]");
+            System.exit(-1);
+        }
+        final Algorithm algorithm = Algorithm.fromKey(args[1]);
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final int queueCapacity = args.length > 3 ? Integer.parseInt(args[3]) : threads * 16;
+        final long nodeLimit = args.length > 4 && Long.parseLong(args[4]) > 0 ? Long.parseLong(args[4]) : Long.MAX_VALUE;
+        final long timeoutMillis = args.length > 5 ? Long.parseLong(args[5]) : 0;
+        final SolverService service = new SolverService(algorithm, threads, queueCapacity, nodeLimit, timeoutMillis);
+        if (args.length > 7) {
+            service.setSolutionFormat(SolutionFormat.fromKey(args[7]));
+        }
+        if (args.length > 6 && !args[6].equals("-")) {
+            for (final String shape : args[6].split(",")) {
+                final String[] size = shape.split("x");
+                service.warmUp(Integer.parseInt(size[0].trim()), Integer.parseInt(size[1].trim()));
+            }
+        }
+        final int port = service.start(Integer.parseInt(args[0]));
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        System.out.println("Listening on port " + port);
+    }
+}
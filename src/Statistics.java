@@ -1,79 +1,129 @@
 package src;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.TreeMap;
 
+/**
+ * Statistics aggregates the run records written by BatchSolver, one JSON object per line.
+ * Records are streamed one line at a time into histograms per algorithm and board size, so memory use
+ * depends on the number of groups and not on the number of runs.
+ */
 public class Statistics {
 
-    private final String BFS = "outputBFS.txt";
-    private final String DFS = "outputDFS.txt";
-    private final String DEPTH_LIMITED = "outputDepthLimited.txt";
-    private final String GREEDY = "outputGreedy.txt";
-    private final String DIJKSTRA = "outputUniCost.txt";
-    private final String A_STAR = "outputAstar.txt";
-    private final String ITERATIVE_DEEPENING = "outputIterativeDeepening.txt";
+    final Map<String, Summary> summaries = new TreeMap<>();
+    private long malformed;
 
-    final private String[] files = new String[]{this.BFS, this.DFS, this.DEPTH_LIMITED, this.GREEDY, this.DIJKSTRA, this.A_STAR, this.ITERATIVE_DEEPENING};
-    Map<String, ArrayList<String>> filesContent;
-
-    public Statistics() {
-
-        this.filesContent = new HashMap<>();
-        Scanner scan;
-        File curFile;
-        ArrayList<String> curContent;
-
-        for (final String fileName : this.files) {
+    /**
+     * read
+     * Adds every record of a stream, skipping blank lines and counting lines that are not records.
+     *
+     * @param input - run records, one per line
+     * @throws IOException if input cannot be read
+     */
+    public void read(final BufferedReader input) throws IOException {
+        String line;
+        while ((line = input.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
             try {
-                curFile = new File(fileName);
-                scan = new Scanner(curFile);
-                curContent = new ArrayList<>();
-
-                while (scan.hasNext()) {
-                    curContent.add(scan.nextLine());
-                }
-                this.filesContent.put(fileName, curContent);
-            } catch (FileNotFoundException e1) {
-                System.out.println("Could not analyse this file");
+                this.add(RunRecord.fromJson(line));
+            } catch (final IllegalArgumentException | IndexOutOfBoundsException e) {
+                this.malformed++;
             }
         }
     }
 
-    public void printMovesComparison() {
-        for (final String key : this.filesContent.keySet()) {
-            int move = this.getMoves(key);
-            if (move == 0) {
-                System.out.println("Algorithm " + key + " : No solution found");
-            } else {
-                System.out.println("Algorithm " + key + " : " + this.getMoves(key) + " Moves");
-            }
-        }
-
+    /**
+     * add
+     *
+     * @param record - run to count
+     */
+    public void add(final RunRecord record) {
+        this.summaries.computeIfAbsent(record.algorithm + " " + record.rows + "x" + record.cols, key -> new Summary())
+                .add(record);
     }
 
-    public int getMoves(final String fileName) {
-        if (this.filesContent.isEmpty()) {
-            return 0;
+    /**
+     * print
+     * Prints min, median and 99th percentile of every measure, per algorithm and board size.
+     *
+     * @param output - where output should be directed
+     */
+    public void print(final PrintWriter output) {
+        for (final Map.Entry<String, Summary> entry : this.summaries.entrySet()) {
+            final Summary summary = entry.getValue();
+            output.println(entry.getKey() + ": " + summary.runs + " runs, " + summary.moves.getCount() + " solved"
+                    + (summary.stopped > 0 ? ", " + summary.stopped + " stopped by limits" : ""));
+            Statistics.printMeasure(output, "moves", summary.moves, 1);
+            Statistics.printMeasure(output, "expanded", summary.expanded, 1);
+            Statistics.printMeasure(output, "unexpanded", summary.unexpanded, 1);
+            Statistics.printMeasure(output, "time us", summary.time, 1000);
+            Statistics.printMeasure(output, "memory MB", summary.memory, 1 << 20);
         }
-        if (!this.filesContent.containsKey(fileName)) {
-            return 0;
+        if (this.malformed > 0) {
+            output.println("Lines skipped: " + this.malformed);
         }
+        output.flush();
+    }
 
-        for (final String str : this.filesContent.get(fileName)) {
-            if (str.contains("Moves")) {
-                final String[] curLine = str.split(" ");
-                return Integer.parseInt(curLine[0]);
+    private static void printMeasure(final PrintWriter output, final String name, final Histogram histogram, final long unit) {
+        if (histogram.getCount() == 0) {
+            return;
+        }
+        output.println("  " + name + " min " + histogram.getMin() / unit + " median " + histogram.quantile(0.5) / unit
+                + " p99 " + histogram.quantile(0.99) / unit + " max " + histogram.getMax() / unit);
+    }
+
+    /**
+     * The class Summary holds the histograms of one algorithm on one board size.
+     */
+    static final class Summary {
+        long runs;
+        long stopped;
+        final Histogram moves = new Histogram();
+        final Histogram expanded = new Histogram();
+        final Histogram unexpanded = new Histogram();
+        final Histogram time = new Histogram();
+        final Histogram memory = new Histogram();
+
+        void add(final RunRecord record) {
+            this.runs++;
+            if (record.outcome.isStopped()) {
+                this.stopped++;
+            }
+            if (record.moves >= 0) {
+                this.moves.add(record.moves);
+            }
+            this.expanded.add(record.expanded);
+            this.unexpanded.add(record.unexpanded);
+            this.time.add(record.timeNanos);
+            if (record.memoryBytes > 0) {
+                this.memory.add(record.memoryBytes);
             }
         }
-        return 0;
     }
 
-    public static void main(String[] args) {
-        Statistics statistics = new Statistics();
-        statistics.printMovesComparison();
+    /**
+     * main
+     * Usage: Statistics [records...]
+     * Reads the given record files, or runs.jsonl if none is given, "-" standing for the standard input.
+     *
+     * @param args - command line arguments
+     * @throws IOException if a file cannot be read
+     */
+    public static void main(final String[] args) throws IOException {
+        final Statistics statistics = new Statistics();
+        for (final String file : args.length == 0 ? new String[]{"runs.jsonl"} : args) {
+            try (BufferedReader input = new BufferedReader(file.equals("-") ? new InputStreamReader(System.in) : new FileReader(file))) {
+                statistics.read(input);
+            }
+        }
+        statistics.print(new PrintWriter(System.out));
     }
 }
@@ -0,0 +1,120 @@
+package src;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+
+/**
+ * The class WalkingDistanceHeuristic is Ken'ichiro Takahashi's walking distance.
+ * Vertically, a board is abstracted to a matrix counting, for every row, how many of its tiles belong
+ * to each goal row; a move of the blank up or down carries one tile between neighbouring rows.
+ * The fewest such moves to the goal matrix is precomputed for every reachable matrix by a breadth-first search,
+ * and the same is done for columns. The two distances never count the same move, so their sum is admissible.
+ * The matrix is packed into a long, which limits the heuristic to boards with at most 64 bits of counts per direction.
+ */
+public class WalkingDistanceHeuristic implements Heuristic {
+    private final int rows;
+    private final int cols;
+    private final int cells;
+    private final int[] goalRow;
+    private final int[] goalCol;
+    private final int rowBits;
+    private final int colBits;
+    private final HashMap<Long, Integer> vertical;
+    private final HashMap<Long, Integer> horizontal;
+
+    /**
+     * WalkingDistanceHeuristic
+     *
+     * @param goal - board whose layout the distances are measured to, blank in the last row and column
+     * @throws IllegalArgumentException if the count matrices of the board do not fit in a long
+     */
+    public WalkingDistanceHeuristic(final int[][] goal) {
+        this.rows = goal.length;
+        this.cols = goal[0].length;
+        this.cells = this.rows * this.cols;
+        this.goalRow = new int[this.cells];
+        this.goalCol = new int[this.cells];
+        for (int i = 0; i < this.rows; i++) {
+            for (int j = 0; j < this.cols; j++) {
+                this.goalRow[goal[i][j]] = i;
+                this.goalCol[goal[i][j]] = j;
+            }
+        }
+        if (goal[this.rows - 1][this.cols - 1] != 0) {
+            throw new IllegalArgumentException("Walking distance needs the blank in the last cell of the goal");
+        }
+        this.rowBits = 32 - Integer.numberOfLeadingZeros(this.cols);
+        this.colBits = 32 - Integer.numberOfLeadingZeros(this.rows);
+        if (this.rows * this.rows * this.rowBits > 64 || this.cols * this.cols * this.colBits > 64) {
+            throw new IllegalArgumentException("Walking distance tables do not fit a " + this.rows + "x" + this.cols + " board");
+        }
+        this.vertical = WalkingDistanceHeuristic.build(this.rows, this.cols, this.rowBits);
+        this.horizontal = WalkingDistanceHeuristic.build(this.cols, this.rows, this.colBits);
+    }
+
+    @Override
+    public int estimate(final GameState gs) {
+        long rowKey = 0;
+        long colKey = 0;
+        for (int cell = 0; cell < this.cells; cell++) {
+            final int tile = gs.tileAt(cell);
+            if (tile != 0) {
+                rowKey += 1L << (((cell / this.cols) * this.rows + this.goalRow[tile]) * this.rowBits);
+                colKey += 1L << (((cell % this.cols) * this.cols + this.goalCol[tile]) * this.colBits);
+            }
+        }
+        return this.vertical.get(rowKey) + this.horizontal.get(colKey);
+    }
+
+    /**
+     * build
+     * Breadth-first search from the goal matrix over count matrices of one direction.
+     *
+     * @param lines    - number of lines in the direction, rows for the vertical distance
+     * @param capacity - number of cells in a line
+     * @param bits     - bits per count in the packed matrix
+     * @return distance to the goal of every reachable packed matrix
+     */
+    private static HashMap<Long, Integer> build(final int lines, final int capacity, final int bits) {
+        final long mask = (1L << bits) - 1;
+        final HashMap<Long, Integer> distance = new HashMap<>();
+        final ArrayDeque<Long> queue = new ArrayDeque<>();
+        long goal = 0;
+        for (int line = 0; line < lines; line++) {
+            goal |= (long) (line == lines - 1 ? capacity - 1 : capacity) << ((line * lines + line) * bits);
+        }
+        distance.put(goal, 0);
+        queue.add(goal);
+        while (!queue.isEmpty()) {
+            final long key = queue.poll();
+            final int value = distance.get(key);
+            int blank = 0;
+            for (int line = 0; line < lines; line++) {
+                int count = 0;
+                for (int target = 0; target < lines; target++) {
+                    count += (int) ((key >>> ((line * lines + target) * bits)) & mask);
+                }
+                if (count < capacity) {
+                    blank = line;
+                }
+            }
+            for (int neighbour = blank - 1; neighbour <= blank + 1; neighbour += 2) {
+                if (neighbour < 0 || neighbour >= lines) {
+                    continue;
+                }
+                for (int target = 0; target < lines; target++) {
+                    final int shift = (neighbour * lines + target) * bits;
+                    if (((key >>> shift) & mask) == 0) {
+                        continue;
+                    }
+                    final long next = key - (1L << shift) + (1L << ((blank * lines + target) * bits));
+                    if (!distance.containsKey(next)) {
+                        distance.put(next, value + 1);
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+}